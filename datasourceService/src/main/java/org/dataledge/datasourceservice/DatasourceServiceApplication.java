@@ -2,8 +2,10 @@ package org.dataledge.datasourceservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DatasourceServiceApplication {
 
     public static void main(String[] args) {
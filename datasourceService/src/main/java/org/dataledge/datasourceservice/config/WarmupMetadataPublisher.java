@@ -0,0 +1,50 @@
+package org.dataledge.datasourceservice.config;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Registers with {@code warming-up=true} in the Eureka metadata (see application.properties) and clears the flag
+ * once the instance had time to fill its pools and JIT the hot paths. The gateway load balancer skips
+ * flagged instances while others are available.
+ */
+@Component
+@Slf4j
+public class WarmupMetadataPublisher {
+
+    public static final String WARMUP_METADATA_KEY = "warming-up";
+
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+    private final TaskScheduler taskScheduler;
+    private final Duration warmupDuration;
+
+    public WarmupMetadataPublisher(ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+                                   TaskScheduler taskScheduler,
+                                   @Value("${datasource.warmup.duration:PT30S}") Duration warmupDuration) {
+        this.applicationInfoManager = applicationInfoManager;
+        this.taskScheduler = taskScheduler;
+        this.warmupDuration = warmupDuration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleWarmupEnd() {
+        taskScheduler.schedule(this::markWarm, Instant.now().plus(warmupDuration));
+    }
+
+    void markWarm() {
+        applicationInfoManager.ifAvailable(manager -> {
+            manager.registerAppMetadata(Map.of(WARMUP_METADATA_KEY, "false"));
+            log.info("Warm-up finished, cleared {} in the Eureka metadata", WARMUP_METADATA_KEY);
+        });
+    }
+}
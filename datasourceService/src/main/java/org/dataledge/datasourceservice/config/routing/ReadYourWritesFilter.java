@@ -0,0 +1,106 @@
+package org.dataledge.datasourceservice.config.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.dataledge.common.DataLedgeUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Pins a client's reads to the primary for a short window after it wrote something,
+ * so a list fetched right after a create or delete is not served from a lagging replica.
+ * <p>
+ * The time of the last write travels with the client in a short-lived cookie rather than living in this instance,
+ * as the gateway spreads a user's requests over all datasource instances and the read may land on another one.
+ * Clients that do not keep cookies read from the replicas right away.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String LAST_WRITE_COOKIE = "dl_last_write";
+
+    private final Duration window;
+    private final Clock clock;
+
+    public ReadYourWritesFilter(Duration window) {
+        this(window, Clock.systemUTC());
+    }
+
+    public ReadYourWritesFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(DataLedgeUtil.USER_ID_HEADER) == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (isWrite(request)) {
+            // Set up front, the response may be committed once the chain returns
+            recordWrite(response);
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (wroteRecently(request)) {
+            RoutingContext.forcePrimary();
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                RoutingContext.clear();
+            }
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    private boolean wroteRecently(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                return withinWindow(cookie.getValue());
+            }
+        }
+        return false;
+    }
+
+    private boolean withinWindow(String lastWrite) {
+        try {
+            long age = clock.millis() - Long.parseLong(lastWrite);
+            // Allows for clock skew between instances, a value far in the future is not ours
+            return Math.abs(age) < window.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void recordWrite(HttpServletResponse response) {
+        ResponseCookie cookie = ResponseCookie.from(LAST_WRITE_COOKIE, Long.toString(clock.millis()))
+                .path("/")
+                .maxAge(window.plusSeconds(1).toSeconds())
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -0,0 +1,81 @@
+package org.dataledge.datasourceservice.config.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the read replicas, round robin,
+ * and everything else to the primary.
+ * Has to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the read-only
+ * flag of the transaction is known by the time the physical connection is requested.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Counter> routeCounters = new HashMap<>();
+
+    /**
+     * @param primary  datasource used for writes and as fallback
+     * @param replicas read replicas keyed by route name, may be empty
+     * @param meterRegistry registry for the per-route connection counters
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // Unknown keys are a bug, never silently route them to the primary
+        setLenientFallback(false);
+
+        this.replicas = Map.copyOf(replicas);
+        this.replicaKeys = List.copyOf(replicas.keySet());
+        for (Object route : targets.keySet()) {
+            routeCounters.put((String) route, Counter.builder("datasource.routing.connections")
+                    .description("Connections handed out per datasource route")
+                    .tag("route", (String) route)
+                    .register(meterRegistry));
+        }
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String route = resolveRoute();
+        routeCounters.get(route).increment();
+        return route;
+    }
+
+    /**
+     * Closes the replica pools. The primary is owned by its own bean and closed there.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private String resolveRoute() {
+        if (replicaKeys.isEmpty()
+                || RoutingContext.isPrimaryForced()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        int index = Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size());
+        return replicaKeys.get(index);
+    }
+}
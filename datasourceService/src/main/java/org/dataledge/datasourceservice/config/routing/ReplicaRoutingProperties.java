@@ -0,0 +1,35 @@
+package org.dataledge.datasourceservice.config.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica settings. The primary keeps using the regular {@code spring.datasource.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * After a user issues a write, their reads go to the primary for this long so they see their own changes
+     * despite replication lag.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(2);
+
+    private int replicaPoolSize = 20;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
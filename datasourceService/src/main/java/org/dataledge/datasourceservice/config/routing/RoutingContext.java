@@ -0,0 +1,42 @@
+package org.dataledge.datasourceservice.config.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread bound hints for {@link ReplicaRoutingDataSource}.
+ * Code that must see its own writes, even inside a read-only transaction, can pin the current thread to the primary.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    // Prevent instantiation
+    private RoutingContext() {}
+
+    public static void forcePrimary() {
+        PRIMARY_FORCED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_FORCED.remove();
+    }
+
+    /**
+     * Runs the given work with every connection taken from the primary, restoring the previous state afterwards.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean alreadyForced = isPrimaryForced();
+        forcePrimary();
+        try {
+            return work.get();
+        } finally {
+            if (!alreadyForced) {
+                clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.dataledge.datasourceservice.config.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
+import org.dataledge.datasourceservice.data.filesnaps.ShardedBlobMetadataStore;
+import org.dataledge.datasourceservice.data.sharding.BlobMetadataResharder;
+import org.dataledge.datasourceservice.data.sharding.ConsistentHashRing;
+import org.dataledge.datasourceservice.data.sharding.ShardDatabases;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores snapshot metadata on several databases when {@code datasource.sharding.enabled=true}.
+ * Every shard gets its own Hikari pool named {@code shard-<name>}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(BlobShardingProperties.class)
+public class BlobShardingConfiguration {
+
+    static final String SCHEMA = "db/shard/blob_metadata.sql";
+
+    @Bean(destroyMethod = "close")
+    public ShardDatabases shardDatabases(BlobShardingProperties properties,
+                                         DataSourceProperties dataSourceProperties,
+                                         MeterRegistry meterRegistry) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (BlobShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + shard.getName());
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername());
+            pool.setPassword(shard.getPassword());
+            pool.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            pool.setMaximumPoolSize(properties.getShardPoolSize());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+            if (properties.isInitializeSchema()) {
+                DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SCHEMA)), pool);
+            }
+            dataSources.put(shard.getName(), pool);
+        }
+        return new ShardDatabases(dataSources);
+    }
+
+    @Bean
+    public ConsistentHashRing blobShardRing(BlobShardingProperties properties) {
+        return new ConsistentHashRing(
+                properties.getShards().stream()
+                        .filter(shard -> !shard.isDraining())
+                        .map(BlobShardingProperties.Shard::getName)
+                        .toList(),
+                properties.getVirtualNodes());
+    }
+
+    @Bean
+    public ShardedBlobMetadataStore shardedBlobMetadataStore(ShardDatabases shardDatabases,
+                                                             ConsistentHashRing blobShardRing,
+                                                             DataSourceRepo dataSourceRepo) {
+        return new ShardedBlobMetadataStore(shardDatabases.getTemplates(), blobShardRing, dataSourceRepo,
+                shardDatabases.getFanOutExecutor());
+    }
+
+    @Bean
+    public BlobMetadataResharder blobMetadataResharder(ShardDatabases shardDatabases, ConsistentHashRing blobShardRing) {
+        return new BlobMetadataResharder(shardDatabases.getTemplates(), blobShardRing);
+    }
+}
@@ -0,0 +1,45 @@
+package org.dataledge.datasourceservice.config.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot metadata shards. Datasources and data types stay in the regular {@code spring.datasource.*} database.
+ */
+@Data
+@ConfigurationProperties(prefix = "datasource.sharding")
+public class BlobShardingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Positions per shard on the hash ring, more positions spread users more evenly.
+     */
+    private int virtualNodes = 128;
+
+    private int shardPoolSize = 10;
+
+    /**
+     * Creates the {@code blob_metadata} table on every shard at startup when missing.
+     */
+    private boolean initializeSchema = true;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+
+        /**
+         * A draining shard keeps its connection pool but is taken off the ring,
+         * so the resharder moves its users to the remaining shards.
+         */
+        private boolean draining = false;
+    }
+}
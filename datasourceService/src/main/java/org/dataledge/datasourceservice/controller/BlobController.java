@@ -1,5 +1,6 @@
 package org.dataledge.datasourceservice.controller;
 
+import org.dataledge.datasourceservice.dto.CountMode;
 import org.dataledge.datasourceservice.dto.blobMetadataDTO.GetPagedBlobMetadataResponse;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.DeleteDataSourcesRequest;
 import org.dataledge.datasourceservice.manager.IAzureBlobRequestManager;
@@ -54,9 +55,10 @@ public class BlobController {
     public ResponseEntity<GetPagedBlobMetadataResponse> getFiles(
             @RequestHeader(DataLedgeUtil.USER_ID_HEADER) String userId,
             @RequestParam("dsId") int datasourceId,
+            @RequestParam(name = "count", defaultValue = "EXACT") CountMode countMode,
             Pageable pageable
             ) {
-        var response = blobMetadataManager.getBlobsForDatasources(userId, datasourceId, pageable.getPageNumber(), pageable.getPageSize());
+        var response = blobMetadataManager.getBlobsForDatasources(userId, datasourceId, pageable.getPageNumber(), pageable.getPageSize(), countMode);
         return ResponseEntity.ok(response);
     }
 
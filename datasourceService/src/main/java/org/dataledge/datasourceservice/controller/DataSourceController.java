@@ -2,14 +2,23 @@ package org.dataledge.datasourceservice.controller;
 
 import lombok.AllArgsConstructor;
 import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.datasourceservice.dto.CountMode;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.CreateDataSourceRequest;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.CreateDataSourceResponse;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.DeleteDataSourceResponse;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.GetDataSourcesResponse;
+import org.dataledge.datasourceservice.dto.transferDTO.ImportDataSourcesResponse;
 import org.dataledge.datasourceservice.manager.IDataSourceManager;
+import org.dataledge.datasourceservice.manager.IDataSourceTransferManager;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 
 @RestController
@@ -17,20 +26,44 @@ import org.springframework.web.bind.annotation.*;
 @AllArgsConstructor
 public class DataSourceController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private IDataSourceManager dataSourceManager;
+    private IDataSourceTransferManager dataSourceTransferManager;
 
     @GetMapping()
     public ResponseEntity<GetDataSourcesResponse> getDataSource(
             @RequestParam(defaultValue = "0") int pageNumber,
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(required = false) String searchTerm,
+            @RequestParam(name = "count", defaultValue = "EXACT") CountMode countMode,
             @RequestHeader(DataLedgeUtil.USER_ID_HEADER) String userId
     ) {
-        GetDataSourcesResponse response = dataSourceManager.getDataSources(userId, pageNumber, pageSize, searchTerm);
+        GetDataSourcesResponse response = dataSourceManager.getDataSources(userId, pageNumber, pageSize, searchTerm, countMode);
 
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportDataSources(
+            @RequestHeader(DataLedgeUtil.USER_ID_HEADER) String userId
+    ) {
+        StreamingResponseBody body = dataSourceTransferManager.exportUserData(userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"datasources.ndjson\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public ResponseEntity<ImportDataSourcesResponse> importDataSources(
+            InputStream body,
+            @RequestHeader(DataLedgeUtil.USER_ID_HEADER) String userId
+    ) throws IOException {
+        ImportDataSourcesResponse response = dataSourceTransferManager.importUserData(userId, body);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
     @PostMapping()
     public ResponseEntity<CreateDataSourceResponse> createDataSource(
             @RequestBody CreateDataSourceRequest createDataSourceRequest,
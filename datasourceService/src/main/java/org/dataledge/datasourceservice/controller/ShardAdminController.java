@@ -0,0 +1,54 @@
+package org.dataledge.datasourceservice.controller;
+
+import org.dataledge.datasourceservice.data.filesnaps.ShardedBlobMetadataStore;
+import org.dataledge.datasourceservice.data.sharding.BlobMetadataResharder;
+import org.dataledge.datasourceservice.dto.blobMetadataDTO.BlobMetadataResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operational endpoints for the snapshot metadata shards, only present when sharding is enabled.
+ */
+@RestController
+@RequestMapping("/admin/shards")
+@ConditionalOnProperty(prefix = "datasource.sharding", name = "enabled", havingValue = "true")
+public class ShardAdminController {
+
+    private static final int MAX_LATEST = 500;
+
+    private final ShardedBlobMetadataStore blobMetadataStore;
+    private final BlobMetadataResharder resharder;
+
+    public ShardAdminController(ShardedBlobMetadataStore blobMetadataStore, BlobMetadataResharder resharder) {
+        this.blobMetadataStore = blobMetadataStore;
+        this.resharder = resharder;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Long>> getStats() {
+        return ResponseEntity.ok(blobMetadataStore.countByShard());
+    }
+
+    @GetMapping("/latest")
+    public ResponseEntity<List<BlobMetadataResponse>> getLatest(@RequestParam(defaultValue = "50") int limit) {
+        var response = blobMetadataStore.findLatest(Math.min(Math.max(limit, 1), MAX_LATEST))
+                .stream()
+                .map(x -> new BlobMetadataResponse(x.getId(), x.getFileName(), x.getCreated()))
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/reshard")
+    public ResponseEntity<Map<String, Integer>> planReshard() {
+        return ResponseEntity.ok(resharder.plan());
+    }
+
+    @PostMapping("/reshard")
+    public ResponseEntity<Map<String, Integer>> reshard() {
+        return ResponseEntity.ok(resharder.reshard());
+    }
+}
@@ -19,6 +19,12 @@ import java.util.Date;
 @Data
 @Builder
 @Entity
+@Table(indexes = {
+        // Listing and search always filter live rows for one user
+        @Index(name = "idx_data_source_user_deleted", columnList = "user_id, deleted_at"),
+        // Lets the purger pick up tombstones oldest first
+        @Index(name = "idx_data_source_deleted", columnList = "deleted_at")
+})
 public class DataSource {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -43,4 +49,23 @@ public class DataSource {
     private Date updated;
 
     private int userId;
+
+    /**
+     * Tombstone set by a soft delete. Rows with a value here are hidden from every read path
+     * and are physically removed, together with their snapshots, by the purger.
+     */
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    /**
+     * Failed purges of this tombstone so far, the purger backs off further after each one.
+     */
+    @Column(name = "purge_attempts", nullable = false)
+    private int purgeAttempts;
+
+    /**
+     * Earliest time the purger tries this tombstone again after a failure, null until the first one.
+     */
+    @Column(name = "next_purge_at")
+    private Instant nextPurgeAt;
 }
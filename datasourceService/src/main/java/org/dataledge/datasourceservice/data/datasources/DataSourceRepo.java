@@ -8,8 +8,11 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,5 +21,37 @@ public interface DataSourceRepo extends PagingAndSortingRepository<DataSource, I
     @Transactional // Ensures the query runs in a transaction even if called elsewhere
     @Query("DELETE FROM DataSource d WHERE d.userId = :userId")
     void deleteAllByUserId(int userId);
-    Optional<DataSource> findByIdAndUserId(Long id, int userId);
+
+    Optional<DataSource> findByIdAndUserIdAndDeletedAtIsNull(Long id, int userId);
+
+    boolean existsByIdAndUserIdAndDeletedAtIsNull(Long id, int userId);
+
+    /**
+     * Tombstones a live datasource owned by the given user. This is the only statement a delete request executes.
+     * @return number of rows updated, 0 when the datasource is unknown, already deleted or owned by someone else
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DataSource d SET d.deletedAt = :deletedAt WHERE d.id = :id AND d.userId = :userId AND d.deletedAt IS NULL")
+    int softDelete(@Param("id") long id, @Param("userId") int userId, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Oldest tombstones first, so the purger works through the backlog in deletion order.
+     * Tombstones backing off after a failed purge are left out until {@code nextPurgeAt}, so they cannot
+     * fill every page and hold up the newer ones.
+     */
+    @Query("SELECT d FROM DataSource d WHERE d.deletedAt IS NOT NULL AND d.deletedAt <= :before"
+            + " AND (d.nextPurgeAt IS NULL OR d.nextPurgeAt <= :now) ORDER BY d.deletedAt ASC")
+    List<DataSource> findTombstones(@Param("before") Instant before, @Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DataSource d SET d.purgeAttempts = d.purgeAttempts + 1, d.nextPurgeAt = :nextPurgeAt"
+            + " WHERE d.id = :id AND d.deletedAt IS NOT NULL")
+    int recordPurgeFailure(@Param("id") long id, @Param("nextPurgeAt") Instant nextPurgeAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DataSource d WHERE d.id = :id AND d.deletedAt IS NOT NULL")
+    int purgeTombstone(@Param("id") long id);
 }
@@ -8,8 +8,11 @@ import org.springframework.data.jpa.domain.Specification;
 public class DataSourceSpecs {
     public static Specification<DataSource> search(int userId, String searchTerm) {
         return (root, query, cb) -> {
-            // 1. Mandatory filter by User ID
-            Predicate userPredicate = cb.equal(root.get("userId"), userId);
+            // 1. Mandatory filter by User ID, tombstoned rows are never listed
+            Predicate userPredicate = cb.and(
+                    cb.equal(root.get("userId"), userId),
+                    cb.isNull(root.get("deletedAt"))
+            );
 
             // 2. If no search term, return just the user filter
             if (searchTerm == null || searchTerm.isBlank()) {
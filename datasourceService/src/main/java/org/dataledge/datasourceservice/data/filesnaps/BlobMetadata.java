@@ -12,6 +12,9 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
+@Table(name = "blob_metadata", indexes = {
+        @Index(name = "idx_blob_metadata_user_datasource", columnList = "user_id, datasource_id")
+})
 public class BlobMetadata {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -4,6 +4,7 @@ package org.dataledge.datasourceservice.data.filesnaps;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -21,15 +22,39 @@ public interface BlobMetadataRepo extends PagingAndSortingRepository<BlobMetadat
     @Query("delete from BlobMetadata b where b.userId = :userId")
     void deleteAllByUserId(int userId);
 
-    @Query("SELECT b FROM BlobMetadata b WHERE b.userId = :userId AND b.dataSource.id = :dsId")
+    @Query("SELECT b FROM BlobMetadata b WHERE b.userId = :userId AND b.dataSource.id = :dsId AND b.dataSource.deletedAt IS NULL")
     Page<BlobMetadata> findByUserAndDataSource(
             @Param("userId") int userId,
             @Param("dsId") long dsId,
             Pageable pageable
     );
 
+    /**
+     * Same rows as {@link #findByUserAndDataSource}, fetching one extra row instead of running a count.
+     */
+    @Query("SELECT b FROM BlobMetadata b WHERE b.userId = :userId AND b.dataSource.id = :dsId AND b.dataSource.deletedAt IS NULL")
+    Slice<BlobMetadata> findSliceByUserAndDataSource(
+            @Param("userId") int userId,
+            @Param("dsId") long dsId,
+            Pageable pageable
+    );
+
+    @Query("SELECT COUNT(b) FROM BlobMetadata b WHERE b.userId = :userId AND b.dataSource.id = :dsId AND b.dataSource.deletedAt IS NULL")
+    long countByUserAndDataSource(@Param("userId") int userId, @Param("dsId") long dsId);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM BlobMetadata b WHERE b.userId = :userId AND b.fileName IN :blobNames")
     void deleteByUserIdAndBlobNames(int userId, List<String> blobNames);
+
+    /**
+     * Next batch of snapshots left behind by a tombstoned datasource. Used by the purger only.
+     */
+    @Query("SELECT b FROM BlobMetadata b WHERE b.userId = :userId AND b.dataSource.id = :dsId ORDER BY b.id ASC")
+    List<BlobMetadata> findPurgeBatch(@Param("userId") int userId, @Param("dsId") long dsId, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BlobMetadata b WHERE b.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,48 @@
+package org.dataledge.datasourceservice.data.filesnaps;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage of snapshot metadata. Every operation is scoped by user id, which lets the rows live either in the
+ * main database ({@link JpaBlobMetadataStore}) or spread over several databases ({@link ShardedBlobMetadataStore}).
+ */
+public interface BlobMetadataStore {
+
+    Page<BlobMetadata> findByUserAndDataSource(int userId, long datasourceId, Pageable pageable);
+
+    /**
+     * Page of snapshots without the total count, {@link Slice#hasNext()} tells whether more rows follow.
+     */
+    Slice<BlobMetadata> findSliceByUserAndDataSource(int userId, long datasourceId, Pageable pageable);
+
+    long countByUserAndDataSource(int userId, long datasourceId);
+
+    BlobMetadata save(BlobMetadata metadata);
+
+    void deleteAllByUserId(int userId);
+
+    void deleteByUserIdAndBlobNames(int userId, List<String> blobNames);
+
+    /**
+     * Next batch of snapshots of a datasource, ordered by id. Used by the purger only.
+     */
+    List<BlobMetadata> findPurgeBatch(int userId, long datasourceId, int limit);
+
+    int deleteByIds(int userId, List<Long> ids);
+
+    /**
+     * Streams every snapshot of a user in id order through a forward-only cursor, one row in memory at a time.
+     * Includes snapshots of soft deleted datasources that were not purged yet, callers filter those.
+     */
+    void streamByUser(int userId, int fetchSize, Consumer<BlobMetadata> consumer);
+
+    /**
+     * Inserts snapshots of one user as a single JDBC batch.
+     */
+    int insertBatch(int userId, List<BlobMetadata> batch);
+}
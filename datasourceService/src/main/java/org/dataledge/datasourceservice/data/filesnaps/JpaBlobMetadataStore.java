@@ -0,0 +1,102 @@
+package org.dataledge.datasourceservice.data.filesnaps;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Default store, keeps snapshot metadata in the main database through {@link BlobMetadataRepo}.
+ * Bulk paths (export cursor and import batches) use plain JDBC on the same database.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "datasource.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class JpaBlobMetadataStore implements BlobMetadataStore {
+
+    private final BlobMetadataRepo repo;
+    private final JdbcTemplate jdbcTemplate;
+
+    public JpaBlobMetadataStore(BlobMetadataRepo repo, JdbcTemplate jdbcTemplate) {
+        this.repo = repo;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<BlobMetadata> findByUserAndDataSource(int userId, long datasourceId, Pageable pageable) {
+        return repo.findByUserAndDataSource(userId, datasourceId, pageable);
+    }
+
+    @Override
+    public Slice<BlobMetadata> findSliceByUserAndDataSource(int userId, long datasourceId, Pageable pageable) {
+        return repo.findSliceByUserAndDataSource(userId, datasourceId, pageable);
+    }
+
+    @Override
+    public long countByUserAndDataSource(int userId, long datasourceId) {
+        return repo.countByUserAndDataSource(userId, datasourceId);
+    }
+
+    @Override
+    public BlobMetadata save(BlobMetadata metadata) {
+        return repo.save(metadata);
+    }
+
+    @Override
+    public void deleteAllByUserId(int userId) {
+        repo.deleteAllByUserId(userId);
+    }
+
+    @Override
+    public void deleteByUserIdAndBlobNames(int userId, List<String> blobNames) {
+        repo.deleteByUserIdAndBlobNames(userId, blobNames);
+    }
+
+    @Override
+    public List<BlobMetadata> findPurgeBatch(int userId, long datasourceId, int limit) {
+        return repo.findPurgeBatch(userId, datasourceId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public int deleteByIds(int userId, List<Long> ids) {
+        return repo.deleteByIds(ids);
+    }
+
+    @Override
+    public void streamByUser(int userId, int fetchSize, Consumer<BlobMetadata> consumer) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT " + ShardedBlobMetadataStore.COLUMNS + " FROM blob_metadata WHERE user_id = ? ORDER BY id",
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(fetchSize);
+                    statement.setInt(1, userId);
+                    return statement;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(ShardedBlobMetadataStore.ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public int insertBatch(int userId, List<BlobMetadata> batch) {
+        // Identity ids keep Hibernate from batching these inserts, so this goes through JDBC directly
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO blob_metadata (file_name, created, user_id, datasource_id) VALUES (?, ?, ?, ?)",
+                batch, batch.size(),
+                (statement, metadata) -> {
+                    statement.setString(1, metadata.getFileName());
+                    statement.setTimestamp(2, Timestamp.from(metadata.getCreated()));
+                    statement.setInt(3, userId);
+                    statement.setLong(4, metadata.getDataSource().getId());
+                });
+        return batch.size();
+    }
+}
@@ -0,0 +1,277 @@
+package org.dataledge.datasourceservice.data.filesnaps;
+
+import org.dataledge.datasourceservice.data.datasources.DataSource;
+import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
+import org.dataledge.datasourceservice.data.sharding.ConsistentHashRing;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps snapshot metadata in N databases, each user living on the shard picked by a consistent hash of the user id.
+ * All user scoped operations touch exactly one shard; admin queries fan out to every shard in parallel.
+ * Shards hold a plain {@code datasource_id} column, the datasource rows stay in the main database,
+ * so reads check the datasource is still live there instead of joining.
+ */
+public class ShardedBlobMetadataStore implements BlobMetadataStore {
+
+    static final String COLUMNS = "id, file_name, created, user_id, datasource_id";
+
+    // Only these sort properties are accepted from the request, mapped to their column
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "id",
+            "created", "created",
+            "fileName", "file_name"
+    );
+
+    static final RowMapper<BlobMetadata> ROW_MAPPER = (rs, rowNum) -> new BlobMetadata(
+            rs.getLong("id"),
+            rs.getString("file_name"),
+            rs.getTimestamp("created").toInstant(),
+            rs.getInt("user_id"),
+            DataSource.builder().id(rs.getLong("datasource_id")).build()
+    );
+
+    private final Map<String, NamedParameterJdbcTemplate> shards;
+    private final ConsistentHashRing ring;
+    private final DataSourceRepo dataSourceRepo;
+    private final Executor fanOutExecutor;
+
+    public ShardedBlobMetadataStore(Map<String, NamedParameterJdbcTemplate> shards,
+                                    ConsistentHashRing ring,
+                                    DataSourceRepo dataSourceRepo,
+                                    Executor fanOutExecutor) {
+        for (String shard : ring.getShards()) {
+            if (!shards.containsKey(shard)) {
+                throw new IllegalArgumentException("No database configured for shard " + shard);
+            }
+        }
+        this.shards = Map.copyOf(shards);
+        this.ring = ring;
+        this.dataSourceRepo = dataSourceRepo;
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    NamedParameterJdbcTemplate shardOf(int userId) {
+        return shards.get(ring.shardFor(userId));
+    }
+
+    @Override
+    public Page<BlobMetadata> findByUserAndDataSource(int userId, long datasourceId, Pageable pageable) {
+        if (!dataSourceRepo.existsByIdAndUserIdAndDeletedAtIsNull(datasourceId, userId)) {
+            return Page.empty(pageable);
+        }
+
+        List<BlobMetadata> content = queryPage(userId, datasourceId, pageable, pageable.getPageSize());
+        return new PageImpl<>(content, pageable, count(userId, datasourceId));
+    }
+
+    @Override
+    public Slice<BlobMetadata> findSliceByUserAndDataSource(int userId, long datasourceId, Pageable pageable) {
+        if (!dataSourceRepo.existsByIdAndUserIdAndDeletedAtIsNull(datasourceId, userId)) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+
+        // One extra row tells whether a next page exists
+        List<BlobMetadata> content = queryPage(userId, datasourceId, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public long countByUserAndDataSource(int userId, long datasourceId) {
+        if (!dataSourceRepo.existsByIdAndUserIdAndDeletedAtIsNull(datasourceId, userId)) {
+            return 0;
+        }
+        return count(userId, datasourceId);
+    }
+
+    private List<BlobMetadata> queryPage(int userId, long datasourceId, Pageable pageable, int limit) {
+        return shardOf(userId).query(
+                "SELECT " + COLUMNS + " FROM blob_metadata WHERE user_id = :userId AND datasource_id = :dsId"
+                        + orderBy(pageable.getSort()) + " LIMIT :limit OFFSET :offset",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("dsId", datasourceId)
+                        .addValue("limit", limit)
+                        .addValue("offset", pageable.getOffset()),
+                ROW_MAPPER);
+    }
+
+    private long count(int userId, long datasourceId) {
+        Long total = shardOf(userId).queryForObject(
+                "SELECT COUNT(*) FROM blob_metadata WHERE user_id = :userId AND datasource_id = :dsId",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("dsId", datasourceId),
+                Long.class);
+        return total == null ? 0 : total;
+    }
+
+    @Override
+    public BlobMetadata save(BlobMetadata metadata) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        shardOf(metadata.getUserId()).update(
+                "INSERT INTO blob_metadata (file_name, created, user_id, datasource_id) "
+                        + "VALUES (:fileName, :created, :userId, :dsId)",
+                new MapSqlParameterSource()
+                        .addValue("fileName", metadata.getFileName())
+                        .addValue("created", Timestamp.from(metadata.getCreated()))
+                        .addValue("userId", metadata.getUserId())
+                        .addValue("dsId", metadata.getDataSource().getId()),
+                keyHolder, new String[]{"id"});
+
+        Number key = keyHolder.getKey();
+        metadata.setId(key == null ? null : key.longValue());
+        return metadata;
+    }
+
+    @Override
+    public void deleteAllByUserId(int userId) {
+        shardOf(userId).update("DELETE FROM blob_metadata WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", userId));
+    }
+
+    @Override
+    public void deleteByUserIdAndBlobNames(int userId, List<String> blobNames) {
+        if (blobNames.isEmpty()) {
+            return;
+        }
+        shardOf(userId).update("DELETE FROM blob_metadata WHERE user_id = :userId AND file_name IN (:names)",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("names", blobNames));
+    }
+
+    @Override
+    public List<BlobMetadata> findPurgeBatch(int userId, long datasourceId, int limit) {
+        return shardOf(userId).query(
+                "SELECT " + COLUMNS + " FROM blob_metadata WHERE user_id = :userId AND datasource_id = :dsId "
+                        + "ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("dsId", datasourceId)
+                        .addValue("limit", limit),
+                ROW_MAPPER);
+    }
+
+    @Override
+    public int deleteByIds(int userId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Ids are only unique within a shard, the user filter keeps this on the owner's rows
+        return shardOf(userId).update("DELETE FROM blob_metadata WHERE user_id = :userId AND id IN (:ids)",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("ids", ids));
+    }
+
+    @Override
+    public void streamByUser(int userId, int fetchSize, Consumer<BlobMetadata> consumer) {
+        shardOf(userId).getJdbcTemplate().query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT " + COLUMNS + " FROM blob_metadata WHERE user_id = ? ORDER BY id",
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(fetchSize);
+                    statement.setInt(1, userId);
+                    return statement;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public int insertBatch(int userId, List<BlobMetadata> batch) {
+        SqlParameterSource[] rows = batch.stream()
+                .map(metadata -> new MapSqlParameterSource()
+                        .addValue("fileName", metadata.getFileName())
+                        .addValue("created", Timestamp.from(metadata.getCreated()))
+                        .addValue("userId", userId)
+                        .addValue("dsId", metadata.getDataSource().getId()))
+                .toArray(SqlParameterSource[]::new);
+        shardOf(userId).batchUpdate("INSERT INTO blob_metadata (file_name, created, user_id, datasource_id) "
+                + "VALUES (:fileName, :created, :userId, :dsId)", rows);
+        return rows.length;
+    }
+
+    // --- Admin fan-out ---
+
+    /**
+     * @return number of snapshot records per shard, queried on all shards in parallel
+     */
+    public Map<String, Long> countByShard() {
+        Map<String, Long> counts = fanOut(shard -> shard.getJdbcTemplate()
+                .queryForObject("SELECT COUNT(*) FROM blob_metadata", Long.class));
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.forEach((name, count) -> result.put(name, count == null ? 0 : count));
+        return result;
+    }
+
+    /**
+     * @return the most recently created snapshots over all shards
+     */
+    public List<BlobMetadata> findLatest(int limit) {
+        Map<String, List<BlobMetadata>> perShard = fanOut(shard -> shard.query(
+                "SELECT " + COLUMNS + " FROM blob_metadata ORDER BY created DESC LIMIT :limit",
+                new MapSqlParameterSource("limit", limit), ROW_MAPPER));
+
+        List<BlobMetadata> merged = new ArrayList<>();
+        perShard.values().forEach(merged::addAll);
+        merged.sort(Comparator.comparing(BlobMetadata::getCreated).reversed());
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    private <T> Map<String, T> fanOut(Function<NamedParameterJdbcTemplate, T> query) {
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        for (String name : ring.getShards()) {
+            NamedParameterJdbcTemplate shard = shards.get(name);
+            futures.put(name, CompletableFuture.supplyAsync(() -> query.apply(shard), fanOutExecutor));
+        }
+
+        Map<String, T> results = new LinkedHashMap<>();
+        futures.forEach((name, future) -> results.put(name, future.join()));
+        return results;
+    }
+
+    private String orderBy(Sort sort) {
+        List<String> clauses = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORTABLE.get(order.getProperty());
+            if (column != null) {
+                clauses.add(column + (order.isAscending() ? " ASC" : " DESC"));
+            }
+        }
+        if (clauses.isEmpty()) {
+            return " ORDER BY id ASC";
+        }
+        return " ORDER BY " + String.join(", ", clauses);
+    }
+}
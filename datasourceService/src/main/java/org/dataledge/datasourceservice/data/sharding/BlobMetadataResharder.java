@@ -0,0 +1,113 @@
+package org.dataledge.datasourceservice.data.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves users whose rows sit on a shard other than the one the current ring assigns them.
+ * Run it after adding a shard or marking one as draining.
+ * <p>
+ * A user is moved in three steps: clear the user on the target, copy the rows, delete them from the source.
+ * A crash between steps leaves the source intact and the next run repeats the move, so the tool is idempotent
+ * per user. Snapshot writes for the affected users must be paused while it runs, the rows get new ids on the target.
+ */
+@Slf4j
+public class BlobMetadataResharder {
+
+    private static final int USER_PAGE_SIZE = 500;
+
+    private final Map<String, NamedParameterJdbcTemplate> shards;
+    private final ConsistentHashRing ring;
+
+    public BlobMetadataResharder(Map<String, NamedParameterJdbcTemplate> shards, ConsistentHashRing ring) {
+        this.shards = shards;
+        this.ring = ring;
+    }
+
+    /**
+     * Plans the migration without touching any data.
+     * @return number of users to move, keyed by {@code source->target}
+     */
+    public Map<String, Integer> plan() {
+        Map<String, Integer> moves = new LinkedHashMap<>();
+        scan((userId, source, target) -> moves.merge(source + "->" + target, 1, Integer::sum));
+        return moves;
+    }
+
+    /**
+     * @return number of snapshot records moved per target shard
+     */
+    public Map<String, Integer> reshard() {
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        scan((userId, source, target) -> {
+            int rows = moveUser(userId, source, target);
+            moved.merge(target, rows, Integer::sum);
+            log.info("Moved {} snapshot records of user {} from shard {} to {}", rows, userId, source, target);
+        });
+        return moved;
+    }
+
+    int moveUser(int userId, String source, String target) {
+        NamedParameterJdbcTemplate from = shards.get(source);
+        NamedParameterJdbcTemplate to = shards.get(target);
+        MapSqlParameterSource user = new MapSqlParameterSource("userId", userId);
+
+        List<Map<String, Object>> rows = from.queryForList(
+                "SELECT file_name, created, user_id, datasource_id FROM blob_metadata WHERE user_id = :userId ORDER BY id",
+                user);
+
+        // Leftovers of an interrupted run, the target cannot own this user yet while writes are paused
+        to.update("DELETE FROM blob_metadata WHERE user_id = :userId", user);
+
+        SqlParameterSource[] batch = rows.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("fileName", row.get("file_name"))
+                        .addValue("created", row.get("created"))
+                        .addValue("userId", row.get("user_id"))
+                        .addValue("dsId", row.get("datasource_id")))
+                .toArray(SqlParameterSource[]::new);
+        to.batchUpdate("INSERT INTO blob_metadata (file_name, created, user_id, datasource_id) "
+                + "VALUES (:fileName, :created, :userId, :dsId)", batch);
+
+        from.update("DELETE FROM blob_metadata WHERE user_id = :userId", user);
+        return rows.size();
+    }
+
+    private void scan(Move move) {
+        for (Map.Entry<String, NamedParameterJdbcTemplate> shard : shards.entrySet()) {
+            String source = shard.getKey();
+            int lastUserId = Integer.MIN_VALUE;
+
+            while (true) {
+                List<Integer> userIds = shard.getValue().queryForList(
+                        "SELECT DISTINCT user_id FROM blob_metadata WHERE user_id > :after ORDER BY user_id LIMIT :limit",
+                        new MapSqlParameterSource()
+                                .addValue("after", lastUserId)
+                                .addValue("limit", USER_PAGE_SIZE),
+                        Integer.class);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+
+                for (int userId : userIds) {
+                    String target = ring.shardFor(userId);
+                    if (!target.equals(source)) {
+                        move.accept(userId, source, target);
+                    }
+                }
+                lastUserId = userIds.get(userIds.size() - 1);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Move {
+        void accept(int userId, String source, String target);
+    }
+}
@@ -0,0 +1,66 @@
+package org.dataledge.datasourceservice.data.sharding;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pools of all configured shards, including draining ones, plus the executor used for fan-out queries.
+ * Owns both and releases them on {@link #close()}.
+ */
+public class ShardDatabases implements Closeable {
+
+    private final Map<String, DataSource> dataSources;
+    private final Map<String, NamedParameterJdbcTemplate> templates = new LinkedHashMap<>();
+    private final ExecutorService fanOutExecutor;
+
+    public ShardDatabases(Map<String, DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard database is required");
+        }
+        this.dataSources = new LinkedHashMap<>(dataSources);
+        this.dataSources.forEach((name, dataSource) -> templates.put(name, new NamedParameterJdbcTemplate(dataSource)));
+        this.fanOutExecutor = Executors.newFixedThreadPool(dataSources.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Map<String, NamedParameterJdbcTemplate> getTemplates() {
+        return templates;
+    }
+
+    public Map<String, DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    public ExecutorService getFanOutExecutor() {
+        return fanOutExecutor;
+    }
+
+    @Override
+    public void close() {
+        fanOutExecutor.shutdown();
+        try {
+            fanOutExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ignored) {
+                    // Shutting down anyway
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.dataledge.datasourceservice.dto;
+
+/**
+ * How listings report their total.
+ * <ul>
+ *     <li>{@code EXACT} runs a count with every page, the default</li>
+ *     <li>{@code APPROXIMATE} reuses a count cached for a short time, it can lag behind recent changes</li>
+ *     <li>{@code NONE} skips the count, clients page on {@code hasNext}</li>
+ * </ul>
+ */
+public enum CountMode {
+    EXACT,
+    APPROXIMATE,
+    NONE
+}
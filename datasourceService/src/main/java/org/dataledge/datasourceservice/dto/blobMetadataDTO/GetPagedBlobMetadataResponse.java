@@ -3,6 +3,7 @@ package org.dataledge.datasourceservice.dto.blobMetadataDTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.dataledge.datasourceservice.dto.CountMode;
 
 import java.util.List;
 
@@ -11,8 +12,11 @@ import java.util.List;
 @Data
 public class GetPagedBlobMetadataResponse {
     private List<BlobMetadataResponse> blobsData;
-    private long totalCount;
+    // Null when the request asked for CountMode.NONE
+    private Long totalCount;
     private int page;
     private int pageSize;
+    private boolean hasNext;
+    private CountMode countMode;
 
 }
@@ -3,6 +3,7 @@ package org.dataledge.datasourceservice.dto.datasourcesDTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.dataledge.datasourceservice.dto.CountMode;
 
 import java.util.List;
 
@@ -11,7 +12,10 @@ import java.util.List;
 @Data
 public class GetDataSourcesResponse {
     private List<DataSourceResponse> items;
-    private long totalCount;
+    // Null when the request asked for CountMode.NONE
+    private Long totalCount;
     private int page;
     private int pageSize;
+    private boolean hasNext;
+    private CountMode countMode;
 }
@@ -0,0 +1,26 @@
+package org.dataledge.datasourceservice.dto.transferDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One datasource line of an NDJSON export. The id is only used to link the snapshot lines that follow.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class DataSourceExportRecord {
+    public static final String KIND = "datasource";
+
+    private String kind = KIND;
+    private Long id;
+    private String name;
+    private Long typeId;
+    private String description;
+    private String url;
+    private Instant created;
+    private Instant updated;
+}
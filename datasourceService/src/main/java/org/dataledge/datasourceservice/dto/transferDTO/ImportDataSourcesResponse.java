@@ -0,0 +1,15 @@
+package org.dataledge.datasourceservice.dto.transferDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ImportDataSourcesResponse {
+    private int importedDataSources;
+    private int importedSnapshots;
+    // Malformed lines, unknown types and snapshots of datasources missing from the file
+    private int skippedLines;
+}
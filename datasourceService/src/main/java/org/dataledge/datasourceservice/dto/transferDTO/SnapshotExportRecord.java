@@ -0,0 +1,23 @@
+package org.dataledge.datasourceservice.dto.transferDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One snapshot metadata line of an NDJSON export, always written after the line of its datasource.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SnapshotExportRecord {
+    public static final String KIND = "snapshot";
+
+    private String kind = KIND;
+    private Long id;
+    private Long datasourceId;
+    private String fileName;
+    private Instant created;
+}
@@ -35,6 +35,8 @@ public interface IAzureBlobStorage {
      * specified {@code userId} before deletion.
      * @param userId            The owner of the files to be deleted.
      * @param blobNamesToDelete A list of relative paths (blob names) to delete.
+     * @throws org.dataledge.datasourceservice.config.exceptions.BlobStorageOperationException If any blob could
+     * not be deleted. Blobs that do not exist count as deleted.
      */
     void deleteFilesBatch(String userId, List<String> blobNamesToDelete);
 
@@ -1,12 +1,13 @@
 package org.dataledge.datasourceservice.manager;
 
+import org.dataledge.datasourceservice.dto.CountMode;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.CreateDataSourceRequest;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.CreateDataSourceResponse;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.DeleteDataSourceResponse;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.GetDataSourcesResponse;
 
 public interface IDataSourceManager {
-    GetDataSourcesResponse getDataSources(String userId, int pageNumber, int pageSize, String searchTerm);
+    GetDataSourcesResponse getDataSources(String userId, int pageNumber, int pageSize, String searchTerm, CountMode countMode);
     CreateDataSourceResponse createDataSource(String userId, CreateDataSourceRequest dataSourceRequest);
     DeleteDataSourceResponse deleteDataSource(String userId, int id);
 
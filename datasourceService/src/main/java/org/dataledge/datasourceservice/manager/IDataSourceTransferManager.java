@@ -0,0 +1,12 @@
+package org.dataledge.datasourceservice.manager;
+
+import org.dataledge.datasourceservice.dto.transferDTO.ImportDataSourcesResponse;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface IDataSourceTransferManager {
+    StreamingResponseBody exportUserData(String userId);
+    ImportDataSourcesResponse importUserData(String userId, InputStream ndjson) throws IOException;
+}
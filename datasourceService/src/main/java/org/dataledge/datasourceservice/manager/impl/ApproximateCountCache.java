@@ -0,0 +1,65 @@
+package org.dataledge.datasourceservice.manager.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Short lived listing totals for {@link org.dataledge.datasourceservice.dto.CountMode#APPROXIMATE}.
+ * Bounded in size, so counts of many distinct search terms push out the least used entries instead of growing
+ * the cache. A write drops all of the user's totals.
+ * The cache is local to each instance, writes on another instance only show up after the TTL.
+ */
+@Component
+public class ApproximateCountCache {
+
+    private record Key(int userId, String scope) {
+    }
+
+    private final Cache<Key, Long> counts;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ApproximateCountCache(@Value("${datasource.paging.count-ttl:PT30S}") Duration ttl,
+                                 @Value("${datasource.paging.count-cache-size:10000}") long maxSize,
+                                 MeterRegistry meterRegistry) {
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                // Evicts on the calling thread, the bound holds after every put
+                .executor(Runnable::run)
+                .build();
+        this.hits = meterRegistry.counter("datasource.paging.count.cache", "result", "hit");
+        this.misses = meterRegistry.counter("datasource.paging.count.cache", "result", "miss");
+    }
+
+    /**
+     * @param userId owner of the listing
+     * @param scope what is counted for that user, e.g. a search term or a datasource id
+     * @param loader exact count, only called on a miss
+     */
+    public long get(int userId, String scope, LongSupplier loader) {
+        Key key = new Key(userId, scope);
+        Long cached = counts.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        long count = loader.getAsLong();
+        counts.put(key, count);
+        return count;
+    }
+
+    public void evictUser(int userId) {
+        // A scan of at most count-cache-size keys, writes are far rarer than listings
+        counts.asMap().keySet().removeIf(key -> key.userId() == userId);
+    }
+}
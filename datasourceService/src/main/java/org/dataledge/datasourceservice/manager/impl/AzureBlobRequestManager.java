@@ -41,7 +41,7 @@ public class AzureBlobRequestManager implements IAzureBlobRequestManager {
         int parsedUserId = Integer.parseInt(sanitizeUserId(userId));
 
         // 1. CHEAP VALIDATION: Existence, Ownership, and Type check in one go
-        DataSource ds = dataSourceRepo.findByIdAndUserId(datasourceId, parsedUserId)
+        DataSource ds = dataSourceRepo.findByIdAndUserIdAndDeletedAtIsNull(datasourceId, parsedUserId)
                 .orElseThrow(() -> new NotFoundException("Datasource not found or access denied"));
 
         if (!"API".equalsIgnoreCase(ds.getType().getName())) {
@@ -154,7 +154,7 @@ public class AzureBlobRequestManager implements IAzureBlobRequestManager {
         // 3. Sanitizing userId input to secure the application
         String sanitizedUserId = sanitizeUserId(userId);
 
-        DataSource ds = dataSourceRepo.findByIdAndUserId(datasourceId, Integer.parseInt(sanitizedUserId))
+        DataSource ds = dataSourceRepo.findByIdAndUserIdAndDeletedAtIsNull(datasourceId, Integer.parseInt(sanitizedUserId))
                 .orElseThrow(() -> new NotFoundException("Datasource not found or access denied"));
 
         if (!"FILE UPLOAD".equalsIgnoreCase(ds.getType().getName())) {
@@ -4,6 +4,7 @@ import com.azure.core.http.rest.PagedIterable;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.batch.BlobBatchClient;
+import com.azure.storage.blob.batch.BlobBatchStorageException;
 import com.azure.storage.blob.models.BlobItem;
 import com.azure.storage.blob.models.BlobStorageException;
 import com.azure.storage.blob.models.DeleteSnapshotsOptionType;
@@ -111,17 +112,33 @@ public class AzureBlobStorageImpl implements IAzureBlobStorage {
 
         if (validBlobUrls.isEmpty()) return;
 
+        List<Integer> rejected = new ArrayList<>();
         try {
             // Azure Batch requires the full Blob URLs
             blobBatchClient.deleteBlobs(validBlobUrls, DeleteSnapshotsOptionType.INCLUDE).forEach(response -> {
-                if (response.getStatusCode() != 202) {
+                if (response.getStatusCode() != 202 && response.getStatusCode() != 404) {
                     log.error("Azure rejected deletion for: {}. Status: {}",
                             response.getRequest().getUrl(), response.getStatusCode());
+                    rejected.add(response.getStatusCode());
                 }
             });
+        } catch (BlobBatchStorageException e) {
+            // Blobs already gone count as deleted, e.g. when a purge is retried after a partial failure
+            for (BlobStorageException failure : e.getBatchExceptions()) {
+                if (failure.getStatusCode() != 404) {
+                    log.error("Azure rejected deletion. Status: {}, error: {}",
+                            failure.getStatusCode(), failure.getErrorCode());
+                    rejected.add(failure.getStatusCode());
+                }
+            }
         } catch (Exception e) {
             throw new BlobStorageOperationException("Cloud batch delete failed", e);
         }
+
+        if (!rejected.isEmpty()) {
+            throw new BlobStorageOperationException("Cloud batch delete failed for " + rejected.size() + " of "
+                    + validBlobUrls.size() + " blobs, statuses " + rejected);
+        }
     }
 
 
@@ -1,5 +1,4 @@
 package org.dataledge.datasourceservice.manager.impl;
-import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.dataledge.datasourceservice.config.exceptions.InvalidUserException;
@@ -7,7 +6,8 @@ import org.dataledge.datasourceservice.data.DataType;
 import org.dataledge.datasourceservice.data.datasources.DataSource;
 import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
 import org.dataledge.datasourceservice.data.filesnaps.BlobMetadata;
-import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataRepo;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataStore;
+import org.dataledge.datasourceservice.dto.CountMode;
 import org.dataledge.datasourceservice.dto.blobMetadataDTO.BlobMetadataResponse;
 import org.dataledge.datasourceservice.dto.blobMetadataDTO.CreateBlobMetadataRequest;
 import org.dataledge.datasourceservice.dto.blobMetadataDTO.GetPagedBlobMetadataResponse;
@@ -15,8 +15,10 @@ import org.dataledge.datasourceservice.manager.IBlobMetadataManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
@@ -26,13 +28,16 @@ import java.util.regex.Pattern;
 @Slf4j
 @Service
 public class BlobMetadataManager implements IBlobMetadataManager {
-    private final BlobMetadataRepo blobMetadataRepo;
+    private final BlobMetadataStore blobMetadataStore;
     private final DataSourceRepo dataSourceRepo;
+    private final ApproximateCountCache countCache;
 
 
-    public BlobMetadataManager(BlobMetadataRepo blobMetadataRepo, DataSourceRepo dataSourceRepo){
-        this.blobMetadataRepo = blobMetadataRepo;
+    public BlobMetadataManager(BlobMetadataStore blobMetadataStore, DataSourceRepo dataSourceRepo,
+                               ApproximateCountCache countCache){
+        this.blobMetadataStore = blobMetadataStore;
         this.dataSourceRepo = dataSourceRepo;
+        this.countCache = countCache;
     }
 
     public String sanitizeUserId(String userId) {
@@ -52,27 +57,36 @@ public class BlobMetadataManager implements IBlobMetadataManager {
     }
 
     @Override
-    public GetPagedBlobMetadataResponse getBlobsForDatasources(String userId, int datasourceId, int pageNumber, int pageSize) {
+    @Transactional(readOnly = true)
+    public GetPagedBlobMetadataResponse getBlobsForDatasources(String userId, int datasourceId, int pageNumber, int pageSize,
+                                                               CountMode countMode) {
         int parsedUserId = Integer.parseInt(sanitizeUserId(userId));
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
 
-        // Calling the custom query method
-        Page<BlobMetadata> pageResult = blobMetadataRepo.findByUserAndDataSource(
-                parsedUserId,
-                datasourceId,
-                pageable
-        );
+        // Calling the custom query method, only the exact mode pays for the COUNT(*)
+        Slice<BlobMetadata> pageResult = countMode == CountMode.EXACT
+                ? blobMetadataStore.findByUserAndDataSource(parsedUserId, datasourceId, pageable)
+                : blobMetadataStore.findSliceByUserAndDataSource(parsedUserId, datasourceId, pageable);
 
         List<BlobMetadataResponse> items = pageResult.getContent()
                 .stream()
                 .map(x -> new BlobMetadataResponse(x.getId(), x.getFileName(), x.getCreated()))
                 .toList();
 
+        Long totalCount = switch (countMode) {
+            case EXACT -> ((Page<BlobMetadata>) pageResult).getTotalElements();
+            case APPROXIMATE -> countCache.get(parsedUserId, "blobs:" + datasourceId,
+                    () -> blobMetadataStore.countByUserAndDataSource(parsedUserId, datasourceId));
+            case NONE -> null;
+        };
+
         return new GetPagedBlobMetadataResponse(
                 items,
-                pageResult.getTotalElements(),
+                totalCount,
                 pageResult.getNumber(),
-                pageResult.getSize()
+                pageResult.getSize(),
+                pageResult.hasNext(),
+                countMode
         );
     }
 
@@ -86,7 +100,8 @@ public class BlobMetadataManager implements IBlobMetadataManager {
                 datasource
         );
 
-        blobMetadataRepo.save(metadata);
+        blobMetadataStore.save(metadata);
+        countCache.evictUser(userId);
         return "Blob reference set successfully";
     }
 
@@ -98,7 +113,8 @@ public class BlobMetadataManager implements IBlobMetadataManager {
         }
 
         try {
-            blobMetadataRepo.deleteByUserIdAndBlobNames(userId, blobNames);
+            blobMetadataStore.deleteByUserIdAndBlobNames(userId, blobNames);
+            countCache.evictUser(userId);
             log.info("Successfully deleted {} metadata records for user: {}", blobNames.size(), userId);
         } catch (Exception e) {
             log.error("Failed to delete metadata batch for user: {}", userId, e);
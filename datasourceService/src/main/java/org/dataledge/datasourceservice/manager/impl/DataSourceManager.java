@@ -9,14 +9,17 @@ import org.dataledge.datasourceservice.data.DataTypeRepo;
 import org.dataledge.datasourceservice.data.datasources.DataSource;
 import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
 import org.dataledge.datasourceservice.data.datasources.DataSourceSpecs;
+import org.dataledge.datasourceservice.dto.CountMode;
 import org.dataledge.datasourceservice.dto.datasourcesDTO.*;
 import org.dataledge.datasourceservice.manager.IDataSourceMapper;
 import org.dataledge.datasourceservice.manager.IDataSourceManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.Date;
@@ -37,25 +40,30 @@ public class DataSourceManager implements IDataSourceManager {
     private final DataTypeRepo dataTypeRepo;
     // Mapper to responses
     private final IDataSourceMapper mapper;
+    // Short lived totals for CountMode.APPROXIMATE
+    private final ApproximateCountCache countCache;
 
     /**
      * @param pageNumber  contains the pageNumber and pageSize properties for repository. pageNumber is zero-based
      * @param pageSize refers to count of elements to get.
+     * @param countMode how the total is computed, {@link CountMode#NONE} skips it and only reports hasNext
      * @return the response object containing List<> of data sources
      * @throws NotFoundException when no items were found from the repository
      */
     @Override
-    public GetDataSourcesResponse getDataSources(String userId, int pageNumber, int pageSize, String searchTerm) {
+    @Transactional(readOnly = true)
+    public GetDataSourcesResponse getDataSources(String userId, int pageNumber, int pageSize, String searchTerm,
+                                                 CountMode countMode) {
         int parsedUserId = Integer.parseInt(userId);
 
         // Build the Specification
         Specification<DataSource> spec = DataSourceSpecs.search(parsedUserId, searchTerm);
+        PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, Sort.by("created").descending());
 
-        // Fetch the page
-        Page<DataSource> pageResult = dataSourceRepo.findAll(
-                spec,
-                PageRequest.of(pageNumber, pageSize, Sort.by("created").descending())
-        );
+        // Exact mode keeps the classic Page with its COUNT(*), the others fetch a Slice of pageSize + 1 rows
+        Slice<DataSource> pageResult = countMode == CountMode.EXACT
+                ? dataSourceRepo.findAll(spec, pageRequest)
+                : dataSourceRepo.findBy(spec, query -> query.slice(pageRequest));
 
         // Optional: Only throw 404 if the user has ZERO records total (no search applied)
         if (pageResult.isEmpty() && (searchTerm == null || searchTerm.isBlank())) {
@@ -67,7 +75,14 @@ public class DataSourceManager implements IDataSourceManager {
                 .map(mapper::toDataSourceResponse)
                 .toList();
 
-        return new GetDataSourcesResponse(items, pageResult.getTotalElements(), pageNumber, pageSize);
+        Long totalCount = switch (countMode) {
+            case EXACT -> ((Page<DataSource>) pageResult).getTotalElements();
+            case APPROXIMATE -> countCache.get(parsedUserId, "datasources:" + (searchTerm == null ? "" : searchTerm.trim()),
+                    () -> dataSourceRepo.count(spec));
+            case NONE -> null;
+        };
+
+        return new GetDataSourcesResponse(items, totalCount, pageNumber, pageSize, pageResult.hasNext(), countMode);
     }
 
     /**
@@ -93,6 +108,7 @@ public class DataSourceManager implements IDataSourceManager {
                     .userId(uId)
                     .build();
             DataSource entity = dataSourceRepo.save(dataSource);
+            countCache.evictUser(uId);
             return new CreateDataSourceResponse(entity.getId(), entity.getName());
         }
 
@@ -102,16 +118,14 @@ public class DataSourceManager implements IDataSourceManager {
     }
 
     /**
-     *
+     * Soft deletes a datasource by setting its tombstone. Snapshot metadata and blobs are removed later
+     * by {@link DataSourcePurgeService}, so the request itself costs a single UPDATE.
      * @param userId - the header userId used to identify who sent the request
      * @param id - id of the datasource to delete in the database
      * @return response with success message
      */
     @Override
     public DeleteDataSourceResponse deleteDataSource(String userId, int id) {
-        DataSource dataSource = dataSourceRepo.findById(id)
-                .orElseThrow(() -> new NotFoundException("Unknown datasource id"));
-
         log.info("Parsing user id for string {}", userId);
         int parsedUserId;
         // Parse userId from header
@@ -123,13 +137,21 @@ public class DataSourceManager implements IDataSourceManager {
             throw new NotFoundException("Invalid user ID: {}" + userId);
         }
 
-        // Check delete is for own datasource
-        if(parsedUserId != dataSource.getUserId()) {
-            log.error("ID's for users dont match datasource\nRequested id: {}", parsedUserId);
-            throw new ForbiddenException("User can delete only own datasource!");
-        }
+        int updated = dataSourceRepo.softDelete(id, parsedUserId, Instant.now());
+        countCache.evictUser(parsedUserId);
+
+        if (updated == 0) {
+            // Slow path only for failed deletes: work out which error to report
+            DataSource dataSource = dataSourceRepo.findById(id)
+                    .filter(ds -> ds.getDeletedAt() == null)
+                    .orElseThrow(() -> new NotFoundException("Unknown datasource id"));
 
-        dataSourceRepo.delete(dataSource);
+            // Check delete is for own datasource
+            if (parsedUserId != dataSource.getUserId()) {
+                log.error("ID's for users dont match datasource\nRequested id: {}", parsedUserId);
+                throw new ForbiddenException("User can delete only own datasource!");
+            }
+        }
 
         return new DeleteDataSourceResponse("Datasource deleted successfully!");
     }
@@ -0,0 +1,145 @@
+package org.dataledge.datasourceservice.manager.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.datasourceservice.data.datasources.DataSource;
+import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadata;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataStore;
+import org.dataledge.datasourceservice.manager.IAzureBlobStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Physically removes soft deleted datasources in the background.
+ * For every tombstone the snapshot metadata and the matching Azure blobs are removed in paced batches,
+ * the datasource row itself is deleted last so an interrupted purge is picked up again on the next run.
+ * A batch whose blobs could not be deleted stops the purge of its datasource before its metadata is touched,
+ * so no blob is left behind without the snapshot record that leads the next run to it.
+ * A tombstone whose purge failed is retried after {@code retry-backoff}, doubled with every further failure up to
+ * {@code max-retry-backoff}, and skipped by the runs in between.
+ */
+@Service
+@Slf4j
+public class DataSourcePurgeService {
+
+    // Azure Blob Batch accepts at most 256 sub-requests per call
+    private static final int MAX_AZURE_BATCH_SIZE = 256;
+
+    private final DataSourceRepo dataSourceRepo;
+    private final BlobMetadataStore blobMetadataStore;
+    private final IAzureBlobStorage azureBlobStorage;
+
+    private final int datasourcesPerRun;
+    private final int batchSize;
+    private final long pauseMs;
+    private final Duration gracePeriod;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    public DataSourcePurgeService(DataSourceRepo dataSourceRepo,
+                                  BlobMetadataStore blobMetadataStore,
+                                  IAzureBlobStorage azureBlobStorage,
+                                  @Value("${datasource.purge.datasources-per-run:20}") int datasourcesPerRun,
+                                  @Value("${datasource.purge.batch-size:100}") int batchSize,
+                                  @Value("${datasource.purge.pause-ms:250}") long pauseMs,
+                                  @Value("${datasource.purge.grace-period:PT1M}") Duration gracePeriod,
+                                  @Value("${datasource.purge.retry-backoff:PT5M}") Duration retryBackoff,
+                                  @Value("${datasource.purge.max-retry-backoff:PT6H}") Duration maxRetryBackoff) {
+        this.dataSourceRepo = dataSourceRepo;
+        this.blobMetadataStore = blobMetadataStore;
+        this.azureBlobStorage = azureBlobStorage;
+        this.datasourcesPerRun = datasourcesPerRun;
+        this.batchSize = Math.min(Math.max(batchSize, 1), MAX_AZURE_BATCH_SIZE);
+        this.pauseMs = pauseMs;
+        this.gracePeriod = gracePeriod;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.purge.interval-ms:60000}",
+            initialDelayString = "${datasource.purge.initial-delay-ms:30000}")
+    public void purgeTombstones() {
+        Instant now = Instant.now();
+        List<DataSource> tombstones = dataSourceRepo.findTombstones(
+                now.minus(gracePeriod),
+                now,
+                PageRequest.of(0, datasourcesPerRun)
+        );
+
+        if (tombstones.isEmpty()) {
+            return;
+        }
+
+        log.info("Purging {} soft deleted datasources", tombstones.size());
+        for (DataSource dataSource : tombstones) {
+            try {
+                purgeDataSource(dataSource);
+            } catch (Exception e) {
+                // The tombstone stays in place and is retried once its backoff has passed
+                Instant nextPurgeAt = Instant.now().plus(backoff(dataSource.getPurgeAttempts()));
+                log.error("Failed to purge datasource {} for user {}, attempt {}, retrying at {}", dataSource.getId(),
+                        dataSource.getUserId(), dataSource.getPurgeAttempts() + 1, nextPurgeAt, e);
+                dataSourceRepo.recordPurgeFailure(dataSource.getId(), nextPurgeAt);
+            }
+        }
+    }
+
+    private Duration backoff(int failedBefore) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(failedBefore, 20));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    /**
+     * Removes every snapshot of a tombstoned datasource and then the datasource row itself.
+     * @param dataSource tombstoned datasource
+     * @return number of snapshot records removed
+     * @throws org.dataledge.datasourceservice.config.exceptions.BlobStorageOperationException If a batch of
+     * blobs could not be deleted, the tombstone and the remaining metadata are left in place
+     */
+    public int purgeDataSource(DataSource dataSource) {
+        int userId = dataSource.getUserId();
+        int purged = 0;
+
+        List<BlobMetadata> batch = nextBatch(dataSource);
+        while (!batch.isEmpty()) {
+            List<String> blobNames = batch.stream()
+                    .map(BlobMetadata::getFileName)
+                    .filter(Objects::nonNull)
+                    .toList();
+
+            // Throws unless every blob is deleted or already gone, the tombstone then stays for the next run
+            azureBlobStorage.deleteFilesBatch(String.valueOf(userId), blobNames);
+            purged += blobMetadataStore.deleteByIds(userId, batch.stream().map(BlobMetadata::getId).toList());
+
+            pause();
+            batch = nextBatch(dataSource);
+        }
+
+        dataSourceRepo.purgeTombstone(dataSource.getId());
+        log.info("Purged datasource {} with {} snapshots for user {}", dataSource.getId(), purged, userId);
+        return purged;
+    }
+
+    private List<BlobMetadata> nextBatch(DataSource dataSource) {
+        return blobMetadataStore.findPurgeBatch(dataSource.getUserId(), dataSource.getId(), batchSize);
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Purge interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package org.dataledge.datasourceservice.manager.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.datasourceservice.data.DataType;
+import org.dataledge.datasourceservice.data.DataTypeRepo;
+import org.dataledge.datasourceservice.data.datasources.DataSource;
+import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadata;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataStore;
+import org.dataledge.datasourceservice.dto.transferDTO.DataSourceExportRecord;
+import org.dataledge.datasourceservice.dto.transferDTO.ImportDataSourcesResponse;
+import org.dataledge.datasourceservice.dto.transferDTO.SnapshotExportRecord;
+import org.dataledge.datasourceservice.manager.IDataSourceTransferManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk export and import of a user's datasources with their snapshot metadata as NDJSON.
+ * Exports read through forward-only cursors and write one line per row, so memory stays flat
+ * regardless of how many snapshots a user has. Imports insert in batches and remap datasource ids.
+ */
+@Service
+@Slf4j
+public class DataSourceTransferManager implements IDataSourceTransferManager {
+
+    // Push a chunk to the client every this many lines
+    private static final int FLUSH_EVERY = 500;
+
+    private static final String DATASOURCE_QUERY =
+            "SELECT id, name, type_id, description, url, created, updated FROM data_source "
+                    + "WHERE user_id = ? AND deleted_at IS NULL ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceRepo dataSourceRepo;
+    private final DataTypeRepo dataTypeRepo;
+    private final BlobMetadataStore blobMetadataStore;
+    private final ApproximateCountCache countCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+
+    private final int fetchSize;
+    private final int batchSize;
+
+    public DataSourceTransferManager(JdbcTemplate jdbcTemplate,
+                                     DataSourceRepo dataSourceRepo,
+                                     DataTypeRepo dataTypeRepo,
+                                     BlobMetadataStore blobMetadataStore,
+                                     ApproximateCountCache countCache,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${datasource.export.fetch-size:-2147483648}") int fetchSize,
+                                     @Value("${datasource.import.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceRepo = dataSourceRepo;
+        this.dataTypeRepo = dataTypeRepo;
+        this.blobMetadataStore = blobMetadataStore;
+        this.countCache = countCache;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Validates the user right away, the returned body streams once the response is committed.
+     * Datasources are written first, each snapshot line follows after the line of its datasource.
+     * @param userId - header userId from auth
+     * @return body writing the NDJSON export
+     */
+    @Override
+    public StreamingResponseBody exportUserData(String userId) {
+        int parsedUserId = parseUserId(userId);
+        return out -> export(parsedUserId, out);
+    }
+
+    private void export(int userId, OutputStream out) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(out);
+        // Only ids are kept, a user has few datasources compared to snapshots
+        Set<Long> liveDataSources = new HashSet<>();
+
+        try {
+            // One read-only transaction gives a consistent view and lets replica routing pick a replica
+            readOnlyTx.executeWithoutResult(status -> {
+                jdbcTemplate.query(
+                        connection -> {
+                            PreparedStatement statement = connection.prepareStatement(
+                                    DATASOURCE_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                            statement.setFetchSize(fetchSize);
+                            statement.setInt(1, userId);
+                            return statement;
+                        },
+                        (RowCallbackHandler) rs -> {
+                            long id = rs.getLong("id");
+                            liveDataSources.add(id);
+                            writer.write(new DataSourceExportRecord(
+                                    DataSourceExportRecord.KIND,
+                                    id,
+                                    rs.getString("name"),
+                                    rs.getLong("type_id"),
+                                    rs.getString("description"),
+                                    rs.getString("url"),
+                                    toInstant(rs.getTimestamp("created")),
+                                    toInstant(rs.getTimestamp("updated"))
+                            ));
+                        });
+
+                blobMetadataStore.streamByUser(userId, fetchSize, metadata -> {
+                    Long datasourceId = metadata.getDataSource().getId();
+                    // Snapshots of soft deleted datasources wait for the purger, they are not exported
+                    if (liveDataSources.contains(datasourceId)) {
+                        writer.write(new SnapshotExportRecord(
+                                SnapshotExportRecord.KIND,
+                                metadata.getId(),
+                                datasourceId,
+                                metadata.getFileName(),
+                                metadata.getCreated()
+                        ));
+                    }
+                });
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away, nothing more can be sent
+            log.warn("Export for user {} aborted after {} lines", userId, writer.lines, e);
+            throw e.getCause();
+        }
+
+        out.flush();
+        log.info("Exported {} lines for user {}", writer.lines, userId);
+    }
+
+    /**
+     * Reads NDJSON as produced by the export line by line and inserts it in batches under the calling user.
+     * Datasources get new ids, snapshot lines are linked through the ids of the datasource lines before them.
+     * @param userId - header userId from auth
+     * @param ndjson - request body
+     * @return counts of imported and skipped lines
+     */
+    @Override
+    public ImportDataSourcesResponse importUserData(String userId, InputStream ndjson) throws IOException {
+        int parsedUserId = parseUserId(userId);
+        Importer importer = new Importer(parsedUserId);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    importer.accept(line);
+                }
+            }
+            importer.flush();
+        } finally {
+            // Batches commit one by one, even a failed import may have added rows
+            countCache.evictUser(parsedUserId);
+        }
+
+        log.info("Imported {} datasources and {} snapshots for user {}, skipped {} lines",
+                importer.dataSources, importer.snapshots, parsedUserId, importer.skipped);
+        return new ImportDataSourcesResponse(importer.dataSources, importer.snapshots, importer.skipped);
+    }
+
+    private int parseUserId(String userId) {
+        try {
+            return Integer.parseInt(userId);
+        } catch (NumberFormatException e) {
+            log.error("Parsing: Invalid userID: {}", userId);
+            throw new NotFoundException("Invalid user ID: " + userId);
+        }
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    private final class NdjsonWriter {
+        private final OutputStream out;
+        private int lines;
+
+        private NdjsonWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(Object record) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(record));
+                out.write('\n');
+                if (++lines % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * State of one import: pending batches, the old to new datasource id map and the counters.
+     */
+    private final class Importer {
+        private final int userId;
+        private final Map<Long, DataType> types;
+        private final Map<Long, Long> newDataSourceIds = new HashMap<>();
+        private final List<DataSourceExportRecord> pendingDataSources = new ArrayList<>();
+        private final List<BlobMetadata> pendingSnapshots = new ArrayList<>();
+
+        private int dataSources;
+        private int snapshots;
+        private int skipped;
+
+        private Importer(int userId) {
+            this.userId = userId;
+            this.types = dataTypeRepo.findAll().stream()
+                    .collect(Collectors.toMap(DataType::getId, Function.identity()));
+        }
+
+        void accept(String line) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                skipped++;
+                return;
+            }
+
+            try {
+                switch (node.path("kind").asText()) {
+                    case DataSourceExportRecord.KIND ->
+                            acceptDataSource(objectMapper.treeToValue(node, DataSourceExportRecord.class));
+                    case SnapshotExportRecord.KIND ->
+                            acceptSnapshot(objectMapper.treeToValue(node, SnapshotExportRecord.class));
+                    default -> skipped++;
+                }
+            } catch (JsonProcessingException e) {
+                skipped++;
+            }
+        }
+
+        private void acceptDataSource(DataSourceExportRecord record) {
+            if (record.getName() == null || !types.containsKey(record.getTypeId())) {
+                skipped++;
+                return;
+            }
+            pendingDataSources.add(record);
+            if (pendingDataSources.size() >= batchSize) {
+                flushDataSources();
+            }
+        }
+
+        private void acceptSnapshot(SnapshotExportRecord record) {
+            // The datasource may still sit in the pending batch
+            if (!pendingDataSources.isEmpty()) {
+                flushDataSources();
+            }
+
+            Long datasourceId = newDataSourceIds.get(record.getDatasourceId());
+            if (datasourceId == null || record.getFileName() == null) {
+                skipped++;
+                return;
+            }
+
+            pendingSnapshots.add(new BlobMetadata(
+                    null,
+                    record.getFileName(),
+                    record.getCreated() != null ? record.getCreated() : Instant.now(),
+                    userId,
+                    DataSource.builder().id(datasourceId).build()
+            ));
+            if (pendingSnapshots.size() >= batchSize) {
+                flushSnapshots();
+            }
+        }
+
+        void flush() {
+            flushDataSources();
+            flushSnapshots();
+        }
+
+        private void flushDataSources() {
+            if (pendingDataSources.isEmpty()) {
+                return;
+            }
+
+            Instant now = Instant.now();
+            List<DataSource> entities = pendingDataSources.stream()
+                    .map(record -> DataSource.builder()
+                            .id(null)
+                            .name(record.getName())
+                            .type(types.get(record.getTypeId()))
+                            .description(record.getDescription())
+                            .url(record.getUrl())
+                            .created(record.getCreated() != null ? record.getCreated() : now)
+                            .updated(Date.from(record.getUpdated() != null ? record.getUpdated() : now))
+                            .userId(userId)
+                            .build())
+                    .toList();
+
+            // Sequence ids let Hibernate send these as one JDBC batch, see hibernate.jdbc.batch_size
+            List<DataSource> saved = dataSourceRepo.saveAll(entities);
+            for (int i = 0; i < saved.size(); i++) {
+                Long oldId = pendingDataSources.get(i).getId();
+                if (oldId != null) {
+                    newDataSourceIds.put(oldId, saved.get(i).getId());
+                }
+            }
+
+            dataSources += saved.size();
+            pendingDataSources.clear();
+        }
+
+        private void flushSnapshots() {
+            if (pendingSnapshots.isEmpty()) {
+                return;
+            }
+            snapshots += blobMetadataStore.insertBatch(userId, List.copyOf(pendingSnapshots));
+            pendingSnapshots.clear();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.dataledge.datasourceservice.dto.datatypesDTO.DataTypeListResponse;
 import org.dataledge.datasourceservice.manager.IDataTypeMapper;
 import org.dataledge.datasourceservice.manager.IDataTypesManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 /***
@@ -26,6 +27,7 @@ public class DataTypesManager implements IDataTypesManager {
      * @return List of DataTypes from database schema
      */
     @Override
+    @Transactional(readOnly = true)
     public DataTypeListResponse getDataTypes() {
         var types =  repo.findAll();
         DataTypeListResponse response = new DataTypeListResponse();
@@ -3,7 +3,7 @@ package org.dataledge.datasourceservice.manager.impl;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
-import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataRepo;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -13,11 +13,11 @@ public class UserCleanupService {
 
     private DataSourceRepo dataSourceRepo;
 
-    private BlobMetadataRepo blobMetadataRepo;
+    private BlobMetadataStore blobMetadataStore;
 
     @Transactional
     public void executeDbCleanup(int userId) {
-        blobMetadataRepo.deleteAllByUserId(userId);
+        blobMetadataStore.deleteAllByUserId(userId);
         dataSourceRepo.deleteAllByUserId(userId);
     }
 }
\ No newline at end of file
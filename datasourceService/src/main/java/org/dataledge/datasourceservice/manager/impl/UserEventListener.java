@@ -4,7 +4,6 @@ import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.dataledge.datasourceservice.config.rabbitmq.RabbitConfig;
 import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
-import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataRepo;
 import org.dataledge.datasourceservice.dto.rabbitmq.UserDeletedEvent;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +15,7 @@ public class UserEventListener {
     private final UserCleanupService userCleanupService;
     private final AzureBlobRequestManager azureBlobRequestManager;
 
-    public UserEventListener(UserCleanupService userCleanupService,  AzureBlobRequestManager azureBlobRequestManager, BlobMetadataRepo repo) {
+    public UserEventListener(UserCleanupService userCleanupService,  AzureBlobRequestManager azureBlobRequestManager) {
         this.userCleanupService = userCleanupService;
         this.azureBlobRequestManager = azureBlobRequestManager;
     }
@@ -0,0 +1,8 @@
+ALTER TABLE data_source
+    ADD deleted_at DATETIME(6) NULL;
+
+CREATE INDEX idx_data_source_user_deleted ON data_source (user_id, deleted_at);
+
+CREATE INDEX idx_data_source_deleted ON data_source (deleted_at);
+
+CREATE INDEX idx_blob_metadata_user_datasource ON blob_metadata (user_id, datasource_id);
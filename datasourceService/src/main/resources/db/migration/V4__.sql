@@ -0,0 +1,5 @@
+ALTER TABLE data_source
+    ADD purge_attempts INT NOT NULL DEFAULT 0;
+
+ALTER TABLE data_source
+    ADD next_purge_at DATETIME(6) NULL;
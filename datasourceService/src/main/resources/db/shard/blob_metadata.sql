@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS blob_metadata
+(
+    id            BIGINT AUTO_INCREMENT NOT NULL,
+    file_name     VARCHAR(255) NULL,
+    created       TIMESTAMP(6) NOT NULL,
+    user_id       INT          NOT NULL,
+    datasource_id BIGINT       NOT NULL,
+    CONSTRAINT pk_blob_metadata PRIMARY KEY (id),
+    INDEX idx_blob_metadata_user_datasource (user_id, datasource_id)
+);
@@ -0,0 +1,56 @@
+package org.dataledge.datasourceservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.datasourceservice.manager.impl.ApproximateCountCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ApproximateCountCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void get_reusesCountUntilEvicted() {
+        ApproximateCountCache cache = new ApproximateCountCache(Duration.ofMinutes(1), 100, meterRegistry);
+        AtomicLong loads = new AtomicLong();
+
+        assertThat(cache.get(7, "datasources:", () -> 10 + loads.getAndIncrement())).isEqualTo(10);
+        assertThat(cache.get(7, "datasources:", () -> 10 + loads.getAndIncrement())).isEqualTo(10);
+        assertThat(cache.get(8, "datasources:", () -> 20)).isEqualTo(20);
+
+        cache.evictUser(7);
+
+        assertThat(cache.get(7, "datasources:", () -> 10 + loads.getAndIncrement())).isEqualTo(11);
+        assertThat(cache.get(8, "datasources:", () -> 99)).isEqualTo(20);
+        assertThat(meterRegistry.get("datasource.paging.count.cache").tag("result", "hit").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void get_reloadsAfterTtl() {
+        ApproximateCountCache cache = new ApproximateCountCache(Duration.ZERO, 100, meterRegistry);
+
+        assertThat(cache.get(7, "blobs:1", () -> 1)).isEqualTo(1);
+        assertThat(cache.get(7, "blobs:1", () -> 2)).isEqualTo(2);
+    }
+
+    @Test
+    void get_keepsAtMostMaxSizeCounts() {
+        ApproximateCountCache cache = new ApproximateCountCache(Duration.ofMinutes(1), 10, meterRegistry);
+
+        // Search as you type, every keystroke a new term
+        for (int i = 0; i < 1000; i++) {
+            cache.get(7, "datasources:" + "a".repeat(i), () -> 1);
+        }
+        AtomicLong loads = new AtomicLong();
+        for (int i = 0; i < 1000; i++) {
+            cache.get(7, "datasources:" + "a".repeat(i), loads::incrementAndGet);
+        }
+
+        assertThat(loads.get()).isGreaterThanOrEqualTo(990);
+    }
+}
@@ -3,6 +3,9 @@ package org.dataledge.datasourceservice;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.batch.BlobBatchClient;
+import com.azure.storage.blob.batch.BlobBatchStorageException;
+import com.azure.storage.blob.models.BlobStorageException;
+import org.dataledge.datasourceservice.config.exceptions.BlobStorageOperationException;
 import org.dataledge.datasourceservice.dto.Storage;
 import org.dataledge.datasourceservice.manager.impl.AzureBlobStorageImpl;
 import org.junit.jupiter.api.Test;
@@ -12,9 +15,14 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
@@ -82,4 +90,36 @@ public class AzureBlobStorageTest {
 
         assertThat(result).isFalse();
     }
+
+    @Test
+    void deleteFilesBatch_ShouldTreatMissingBlobsAsDeleted_AndThrowForOtherFailures() {
+        BlobContainerClient mockContainerClient = Mockito.mock(BlobContainerClient.class);
+        BlobBatchClient mockBatchClient = Mockito.mock(BlobBatchClient.class);
+        BlobClient mockBlobClient = Mockito.mock(BlobClient.class);
+        when(mockContainerClient.getBlobClient(anyString())).thenReturn(mockBlobClient);
+        when(mockBlobClient.getBlobUrl()).thenReturn("https://account.blob.core.windows.net/files/7/a.json");
+
+        BlobBatchStorageException alreadyGone = batchFailure(404);
+        BlobBatchStorageException locked = batchFailure(404, 409);
+        when(mockBatchClient.deleteBlobs(anyList(), any())).thenThrow(alreadyGone).thenThrow(locked);
+
+        AzureBlobStorageImpl serviceUnderTest = new AzureBlobStorageImpl(mockContainerClient, mockBatchClient);
+
+        assertThatCode(() -> serviceUnderTest.deleteFilesBatch("7", List.of("a.json")))
+                .doesNotThrowAnyException();
+        BlobStorageOperationException thrownException = assertThrows(BlobStorageOperationException.class,
+                () -> serviceUnderTest.deleteFilesBatch("7", List.of("a.json", "b.json")));
+        assertThat(thrownException.getMessage()).contains("1 of 2 blobs");
+    }
+
+    private static BlobBatchStorageException batchFailure(int... statusCodes) {
+        List<BlobStorageException> failures = Arrays.stream(statusCodes).mapToObj(statusCode -> {
+            BlobStorageException failure = Mockito.mock(BlobStorageException.class);
+            when(failure.getStatusCode()).thenReturn(statusCode);
+            return failure;
+        }).toList();
+        BlobBatchStorageException batchException = Mockito.mock(BlobBatchStorageException.class);
+        when(batchException.getBatchExceptions()).thenReturn(failures);
+        return batchException;
+    }
 }
@@ -0,0 +1,157 @@
+package org.dataledge.datasourceservice;
+
+import org.dataledge.datasourceservice.config.exceptions.BlobStorageOperationException;
+import org.dataledge.datasourceservice.data.datasources.DataSource;
+import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadata;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataStore;
+import org.dataledge.datasourceservice.manager.IAzureBlobStorage;
+import org.dataledge.datasourceservice.manager.impl.DataSourcePurgeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DataSourcePurgeServiceTest {
+
+    @Mock
+    private DataSourceRepo dataSourceRepo;
+
+    @Mock
+    private BlobMetadataStore blobMetadataStore;
+
+    @Mock
+    private IAzureBlobStorage azureBlobStorage;
+
+    private DataSourcePurgeService purgeService;
+
+    @BeforeEach
+    void setUp() {
+        purgeService = new DataSourcePurgeService(dataSourceRepo, blobMetadataStore, azureBlobStorage,
+                10, 2, 0, Duration.ZERO, Duration.ofMinutes(5), Duration.ofHours(6));
+    }
+
+    private DataSource tombstone() {
+        return DataSource.builder()
+                .id(5L)
+                .userId(7)
+                .created(Instant.now())
+                .deletedAt(Instant.now())
+                .build();
+    }
+
+    private BlobMetadata blob(long id, String name, DataSource ds) {
+        return new BlobMetadata(id, name, Instant.now(), ds.getUserId(), ds);
+    }
+
+    @Test
+    void purgeDataSource_deletes_blobs_and_metadata_in_batches_then_row() {
+        DataSource ds = tombstone();
+        when(blobMetadataStore.findPurgeBatch(eq(7), eq(5L), anyInt()))
+                .thenReturn(List.of(blob(1, "a.json", ds), blob(2, "b.json", ds)))
+                .thenReturn(List.of(blob(3, "c.json", ds)))
+                .thenReturn(List.of());
+        when(blobMetadataStore.deleteByIds(anyInt(), any())).thenAnswer(inv -> ((List<?>) inv.getArgument(1)).size());
+
+        int purged = purgeService.purgeDataSource(ds);
+
+        assertThat(purged).isEqualTo(3);
+        verify(azureBlobStorage).deleteFilesBatch("7", List.of("a.json", "b.json"));
+        verify(azureBlobStorage).deleteFilesBatch("7", List.of("c.json"));
+        verify(blobMetadataStore).deleteByIds(7, List.of(1L, 2L));
+        verify(blobMetadataStore).deleteByIds(7, List.of(3L));
+        verify(dataSourceRepo).purgeTombstone(5L);
+    }
+
+    @Test
+    void purgeTombstones_keeps_tombstone_and_metadata_when_blob_delete_fails() {
+        DataSource ds = tombstone();
+        when(dataSourceRepo.findTombstones(any(Instant.class), any(Instant.class), any(Pageable.class))).thenReturn(List.of(ds));
+        when(blobMetadataStore.findPurgeBatch(anyInt(), anyLong(), anyInt()))
+                .thenReturn(List.of(blob(1, "locked.json", ds)));
+        doThrow(new BlobStorageOperationException("Cloud batch delete failed for 1 of 1 blobs, statuses [409]"))
+                .when(azureBlobStorage).deleteFilesBatch(anyString(), any());
+
+        purgeService.purgeTombstones();
+
+        verify(blobMetadataStore, never()).deleteByIds(anyInt(), any());
+        verify(dataSourceRepo, never()).purgeTombstone(anyLong());
+        verify(dataSourceRepo).recordPurgeFailure(eq(5L), argThat(next -> next.isAfter(Instant.now())));
+    }
+
+    @Test
+    void purgeTombstones_moves_past_a_page_of_failing_tombstones() {
+        // Ten tombstones whose blobs cannot be deleted fill the first page, the newest one purges fine
+        List<DataSource> tombstones = new ArrayList<>();
+        Instant deleted = Instant.now().minus(Duration.ofDays(1));
+        for (long id = 1; id <= 11; id++) {
+            tombstones.add(DataSource.builder()
+                    .id(id)
+                    .userId(id <= 10 ? 9 : 7)
+                    .created(deleted)
+                    .deletedAt(deleted.plusSeconds(id))
+                    .build());
+        }
+        // Stands in for the query: due tombstones, oldest first, one page
+        when(dataSourceRepo.findTombstones(any(Instant.class), any(Instant.class), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    Instant now = inv.getArgument(1);
+                    Pageable page = inv.getArgument(2);
+                    return tombstones.stream()
+                            .filter(ds -> ds.getNextPurgeAt() == null || !ds.getNextPurgeAt().isAfter(now))
+                            .limit(page.getPageSize())
+                            .toList();
+                });
+        when(dataSourceRepo.recordPurgeFailure(anyLong(), any(Instant.class))).thenAnswer(inv -> {
+            DataSource failed = tombstones.get((int) (long) inv.<Long>getArgument(0) - 1);
+            failed.setPurgeAttempts(failed.getPurgeAttempts() + 1);
+            failed.setNextPurgeAt(inv.getArgument(1));
+            return 1;
+        });
+        when(blobMetadataStore.findPurgeBatch(anyInt(), anyLong(), anyInt())).thenAnswer(inv -> {
+            DataSource ds = tombstones.get((int) (long) inv.<Long>getArgument(1) - 1);
+            return ds.getUserId() == 9 ? List.of(blob(ds.getId(), "locked.json", ds)) : List.of();
+        });
+        doThrow(new BlobStorageOperationException("Cloud batch delete failed for 1 of 1 blobs, statuses [409]"))
+                .when(azureBlobStorage).deleteFilesBatch(eq("9"), any());
+
+        purgeService.purgeTombstones();
+        purgeService.purgeTombstones();
+
+        verify(dataSourceRepo).purgeTombstone(11L);
+        verify(dataSourceRepo, times(10)).recordPurgeFailure(anyLong(), any(Instant.class));
+        assertThat(tombstones.subList(0, 10)).allSatisfy(ds -> {
+            assertThat(ds.getPurgeAttempts()).isEqualTo(1);
+            assertThat(ds.getNextPurgeAt()).isAfter(Instant.now().plus(Duration.ofMinutes(4)));
+        });
+    }
+
+    @Test
+    void purgeTombstones_keeps_tombstone_when_metadata_delete_fails() {
+        DataSource ds = tombstone();
+        when(dataSourceRepo.findTombstones(any(Instant.class), any(Instant.class), any(Pageable.class))).thenReturn(List.of(ds));
+        when(blobMetadataStore.findPurgeBatch(anyInt(), anyLong(), anyInt()))
+                .thenReturn(List.of(blob(1, "a.json", ds)));
+        when(blobMetadataStore.deleteByIds(anyInt(), any())).thenThrow(new RuntimeException("db down"));
+
+        purgeService.purgeTombstones();
+
+        verify(dataSourceRepo, never()).purgeTombstone(anyLong());
+    }
+}
@@ -0,0 +1,147 @@
+package org.dataledge.datasourceservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.datasourceservice.data.DataType;
+import org.dataledge.datasourceservice.data.DataTypeRepo;
+import org.dataledge.datasourceservice.data.datasources.DataSource;
+import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadataRepo;
+import org.dataledge.datasourceservice.data.filesnaps.JpaBlobMetadataStore;
+import org.dataledge.datasourceservice.dto.transferDTO.ImportDataSourcesResponse;
+import org.dataledge.datasourceservice.manager.impl.ApproximateCountCache;
+import org.dataledge.datasourceservice.manager.impl.DataSourceTransferManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exports from and imports into an embedded H2 database, datasource inserts go through a mocked repository.
+ */
+public class DataSourceTransferManagerTest {
+
+    private static final Instant CREATED = Instant.parse("2025-01-01T10:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceRepo dataSourceRepo;
+    private DataSourceTransferManager transferManager;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:transfer;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS blob_metadata");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS data_source");
+        jdbcTemplate.execute("CREATE TABLE data_source (id BIGINT PRIMARY KEY, name VARCHAR(255), type_id BIGINT, "
+                + "description VARCHAR(255), url VARCHAR(255), created TIMESTAMP, updated TIMESTAMP, user_id INT, "
+                + "deleted_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE blob_metadata (id BIGINT AUTO_INCREMENT PRIMARY KEY, file_name VARCHAR(50), "
+                + "created TIMESTAMP, user_id INT, datasource_id BIGINT)");
+
+        dataSourceRepo = mock(DataSourceRepo.class);
+        DataTypeRepo dataTypeRepo = mock(DataTypeRepo.class);
+        when(dataTypeRepo.findAll()).thenReturn(List.of(new DataType(1L, "API", "Rest API", null)));
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        transferManager = new DataSourceTransferManager(
+                jdbcTemplate,
+                dataSourceRepo,
+                dataTypeRepo,
+                new JpaBlobMetadataStore(mock(BlobMetadataRepo.class), jdbcTemplate),
+                new ApproximateCountCache(Duration.ofSeconds(30), 100, new SimpleMeterRegistry()),
+                objectMapper,
+                new DataSourceTransactionManager(dataSource),
+                100,
+                2
+        );
+    }
+
+    private void insertDataSource(long id, int userId, Instant deletedAt) {
+        jdbcTemplate.update("INSERT INTO data_source VALUES (?, ?, 1, 'desc', 'http://x', ?, ?, ?, ?)",
+                id, "ds" + id, Timestamp.from(CREATED), Timestamp.from(CREATED), userId,
+                deletedAt == null ? null : Timestamp.from(deletedAt));
+    }
+
+    private void insertSnapshot(String name, int userId, long datasourceId) {
+        jdbcTemplate.update("INSERT INTO blob_metadata (file_name, created, user_id, datasource_id) VALUES (?, ?, ?, ?)",
+                name, Timestamp.from(CREATED), userId, datasourceId);
+    }
+
+    private List<String> export(String userId) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transferManager.exportUserData(userId).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    @Test
+    void export_writesLiveDataSourcesThenTheirSnapshots() throws Exception {
+        insertDataSource(1, 7, null);
+        insertDataSource(2, 7, Instant.now());
+        insertDataSource(3, 8, null);
+        insertSnapshot("a.json", 7, 1);
+        insertSnapshot("deleted.json", 7, 2);
+        insertSnapshot("other-user.json", 8, 3);
+
+        List<String> lines = export("7");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"kind\":\"datasource\"", "\"id\":1", "\"typeId\":1");
+        assertThat(lines.get(1)).contains("\"kind\":\"snapshot\"", "\"datasourceId\":1", "\"fileName\":\"a.json\"");
+    }
+
+    @Test
+    void import_batchesInsertsAndRemapsDataSourceIds() throws Exception {
+        AtomicLong nextId = new AtomicLong(100);
+        List<Integer> batchSizes = new ArrayList<>();
+        when(dataSourceRepo.saveAll(anyList())).thenAnswer(inv -> {
+            List<DataSource> batch = inv.getArgument(0);
+            batchSizes.add(batch.size());
+            batch.forEach(ds -> ds.setId(nextId.getAndIncrement()));
+            return batch;
+        });
+
+        String ndjson = String.join("\n",
+                "{\"kind\":\"datasource\",\"id\":1,\"name\":\"one\",\"typeId\":1}",
+                "{\"kind\":\"datasource\",\"id\":2,\"name\":\"two\",\"typeId\":1}",
+                "{\"kind\":\"datasource\",\"id\":3,\"name\":\"unknown type\",\"typeId\":9}",
+                "{\"kind\":\"snapshot\",\"id\":10,\"datasourceId\":1,\"fileName\":\"a.json\",\"created\":\"2025-01-01T10:00:00Z\"}",
+                "{\"kind\":\"snapshot\",\"id\":11,\"datasourceId\":2,\"fileName\":\"b.json\"}",
+                "{\"kind\":\"snapshot\",\"id\":12,\"datasourceId\":3,\"fileName\":\"orphan.json\"}",
+                "not json",
+                "");
+
+        ImportDataSourcesResponse response = transferManager.importUserData(
+                "5", new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getImportedDataSources()).isEqualTo(2);
+        assertThat(response.getImportedSnapshots()).isEqualTo(2);
+        assertThat(response.getSkippedLines()).isEqualTo(3);
+        assertThat(batchSizes).containsExactly(2);
+        verify(dataSourceRepo, times(1)).saveAll(anyList());
+
+        List<Long> datasourceIds = jdbcTemplate.queryForList(
+                "SELECT datasource_id FROM blob_metadata WHERE user_id = 5 ORDER BY id", Long.class);
+        assertThat(datasourceIds).containsExactly(100L, 101L);
+    }
+}
@@ -0,0 +1,68 @@
+package org.dataledge.datasourceservice;
+
+import jakarta.servlet.http.Cookie;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.datasourceservice.config.routing.ReadYourWritesFilter;
+import org.dataledge.datasourceservice.config.routing.RoutingContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each request goes through a filter of its own, as if every one landed on a different instance.
+ */
+public class ReadYourWritesFilterTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private static ReadYourWritesFilter instanceAt(Instant now) {
+        return new ReadYourWritesFilter(Duration.ofSeconds(2), Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static MockHttpServletRequest request(String method, Cookie... cookies) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/datasources");
+        request.addHeader(DataLedgeUtil.USER_ID_HEADER, "7");
+        if (cookies.length > 0) {
+            request.setCookies(cookies);
+        }
+        return request;
+    }
+
+    private static boolean readsFromPrimary(ReadYourWritesFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        AtomicBoolean primary = new AtomicBoolean();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> primary.set(RoutingContext.isPrimaryForced()));
+        assertThat(RoutingContext.isPrimaryForced()).isFalse();
+        return primary.get();
+    }
+
+    @Test
+    void readAfterWriteGoesToPrimaryOnAnyInstance() throws Exception {
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        instanceAt(NOW).doFilter(request("POST"), written, (req, res) -> { });
+
+        assertThat(written.getHeader(HttpHeaders.SET_COOKIE)).startsWith(ReadYourWritesFilter.LAST_WRITE_COOKIE + "=");
+        Cookie lastWrite = written.getCookie(ReadYourWritesFilter.LAST_WRITE_COOKIE);
+
+        assertThat(readsFromPrimary(instanceAt(NOW.plusSeconds(1)), request("GET", lastWrite))).isTrue();
+        assertThat(readsFromPrimary(instanceAt(NOW.plusSeconds(3)), request("GET", lastWrite))).isFalse();
+        assertThat(readsFromPrimary(instanceAt(NOW.plusSeconds(1)), request("GET"))).isFalse();
+    }
+
+    @Test
+    void malformedCookieIsIgnored() throws Exception {
+        Cookie junk = new Cookie(ReadYourWritesFilter.LAST_WRITE_COOKIE, "not-a-time");
+
+        assertThat(readsFromPrimary(instanceAt(NOW), request("GET", junk))).isFalse();
+    }
+}
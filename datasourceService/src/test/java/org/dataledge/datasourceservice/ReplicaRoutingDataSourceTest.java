@@ -0,0 +1,104 @@
+package org.dataledge.datasourceservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.datasourceservice.config.routing.ReplicaRoutingDataSource;
+import org.dataledge.datasourceservice.config.routing.RoutingContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes against two embedded H2 databases that only differ in the name stored in their {@code node} table.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate writeTx;
+
+    private static DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        template.execute("DELETE FROM node");
+        template.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                embedded("routing_primary"),
+                Map.of("replica-0", embedded("routing_replica")),
+                meterRegistry);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    @Test
+    void readOnlyTransaction_goesToReplica() {
+        String node = readOnlyTx.execute(status -> currentNode());
+
+        assertThat(node).isEqualTo("routing_replica");
+    }
+
+    @Test
+    void writeTransaction_goesToPrimary() {
+        String node = writeTx.execute(status -> currentNode());
+
+        assertThat(node).isEqualTo("routing_primary");
+    }
+
+    @Test
+    void forcedPrimary_overridesReadOnly() {
+        String node = RoutingContext.onPrimary(() -> readOnlyTx.execute(status -> currentNode()));
+
+        assertThat(node).isEqualTo("routing_primary");
+        assertThat(RoutingContext.isPrimaryForced()).isFalse();
+    }
+
+    @Test
+    void routeCounters_areExported() {
+        // The lazy proxy probes the primary once for connection defaults on first use
+        writeTx.execute(status -> currentNode());
+        double primaryBefore = routeCount("primary");
+
+        readOnlyTx.execute(status -> currentNode());
+        readOnlyTx.execute(status -> currentNode());
+        writeTx.execute(status -> currentNode());
+
+        assertThat(routeCount("replica-0")).isEqualTo(2.0);
+        assertThat(routeCount("primary") - primaryBefore).isEqualTo(1.0);
+    }
+
+    private double routeCount(String route) {
+        return meterRegistry.get("datasource.routing.connections").tag("route", route).counter().count();
+    }
+}
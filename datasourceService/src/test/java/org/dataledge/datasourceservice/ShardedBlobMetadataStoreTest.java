@@ -0,0 +1,204 @@
+package org.dataledge.datasourceservice;
+
+import org.dataledge.datasourceservice.data.datasources.DataSource;
+import org.dataledge.datasourceservice.data.datasources.DataSourceRepo;
+import org.dataledge.datasourceservice.data.filesnaps.BlobMetadata;
+import org.dataledge.datasourceservice.data.filesnaps.ShardedBlobMetadataStore;
+import org.dataledge.datasourceservice.data.sharding.BlobMetadataResharder;
+import org.dataledge.datasourceservice.data.sharding.ConsistentHashRing;
+import org.dataledge.datasourceservice.data.sharding.ShardDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the sharded store and the resharder against three embedded H2 databases in MySQL mode.
+ */
+public class ShardedBlobMetadataStoreTest {
+
+    private static final List<String> SHARDS = List.of("s0", "s1", "s2");
+
+    private ShardDatabases databases;
+    private DataSourceRepo dataSourceRepo;
+
+    private static javax.sql.DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:shard_" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        DatabasePopulatorUtils.execute(
+                new ResourceDatabasePopulator(new ClassPathResource("db/shard/blob_metadata.sql")), dataSource);
+        new JdbcTemplate(dataSource).execute("DELETE FROM blob_metadata");
+        return dataSource;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Map<String, javax.sql.DataSource> dataSources = new LinkedHashMap<>();
+        SHARDS.forEach(name -> dataSources.put(name, embedded(name)));
+        databases = new ShardDatabases(dataSources);
+
+        dataSourceRepo = mock(DataSourceRepo.class);
+        when(dataSourceRepo.existsByIdAndUserIdAndDeletedAtIsNull(anyLong(), anyInt())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databases.close();
+    }
+
+    private ShardedBlobMetadataStore store(List<String> ringShards) {
+        return new ShardedBlobMetadataStore(databases.getTemplates(), new ConsistentHashRing(ringShards, 128),
+                dataSourceRepo, databases.getFanOutExecutor());
+    }
+
+    private BlobMetadata blob(int userId, long dsId, String name) {
+        return new BlobMetadata(null, name, Instant.now(), userId, DataSource.builder().id(dsId).build());
+    }
+
+    @Test
+    void ring_spreadsUsersAndIsStable() {
+        ConsistentHashRing ring = new ConsistentHashRing(SHARDS, 128);
+        Map<String, Integer> perShard = new HashMap<>();
+        IntStream.range(0, 3000).forEach(userId -> perShard.merge(ring.shardFor(userId), 1, Integer::sum));
+
+        assertThat(perShard).containsOnlyKeys(SHARDS);
+        perShard.values().forEach(count -> assertThat(count).isBetween(700, 1300));
+        assertThat(new ConsistentHashRing(SHARDS, 128).shardFor(42)).isEqualTo(ring.shardFor(42));
+    }
+
+    @Test
+    void ring_addingShard_onlyMovesUsersToNewShard() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("s0", "s1"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(SHARDS, 128);
+
+        IntStream.range(0, 1000).forEach(userId -> {
+            String target = after.shardFor(userId);
+            assertThat(target).isIn(before.shardFor(userId), "s2");
+        });
+    }
+
+    @Test
+    void userOperations_touchOnlyTheOwningShard() {
+        ShardedBlobMetadataStore store = store(SHARDS);
+        store.save(blob(7, 1L, "a.json"));
+        store.save(blob(7, 1L, "b.json"));
+        store.save(blob(7, 2L, "other.json"));
+        store.save(blob(8, 1L, "c.json"));
+
+        Page<BlobMetadata> page = store.findByUserAndDataSource(7, 1L, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(BlobMetadata::getFileName).containsExactly("a.json", "b.json");
+
+        String owner = new ConsistentHashRing(SHARDS, 128).shardFor(7);
+        Map<String, Long> counts = store.countByShard();
+        long userSevenShardRows = counts.get(owner);
+        assertThat(userSevenShardRows).isGreaterThanOrEqualTo(3);
+        assertThat(counts.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(4);
+    }
+
+    @Test
+    void slice_reportsHasNextWithoutCounting() {
+        ShardedBlobMetadataStore store = store(SHARDS);
+        IntStream.range(0, 5).forEach(i -> store.save(blob(7, 1L, "f" + i + ".json")));
+
+        Slice<BlobMetadata> first = store.findSliceByUserAndDataSource(7, 1L, PageRequest.of(0, 3));
+        Slice<BlobMetadata> last = store.findSliceByUserAndDataSource(7, 1L, PageRequest.of(1, 3));
+
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).hasSize(2);
+        assertThat(last.hasNext()).isFalse();
+        assertThat(store.countByUserAndDataSource(7, 1L)).isEqualTo(5);
+    }
+
+    @Test
+    void deletes_areScopedByUser() {
+        ShardedBlobMetadataStore store = store(SHARDS);
+        BlobMetadata first = store.save(blob(7, 1L, "a.json"));
+        store.save(blob(7, 1L, "b.json"));
+        store.save(blob(9, 1L, "a.json"));
+
+        store.deleteByUserIdAndBlobNames(7, List.of("b.json"));
+        assertThat(store.deleteByIds(7, List.of(first.getId()))).isEqualTo(1);
+
+        assertThat(store.findPurgeBatch(7, 1L, 10)).isEmpty();
+        assertThat(store.findPurgeBatch(9, 1L, 10)).hasSize(1);
+    }
+
+    @Test
+    void deletedDataSource_isHiddenWithoutTouchingShards() {
+        ShardedBlobMetadataStore store = store(SHARDS);
+        store.save(blob(7, 1L, "a.json"));
+        when(dataSourceRepo.existsByIdAndUserIdAndDeletedAtIsNull(1L, 7)).thenReturn(false);
+
+        assertThat(store.findByUserAndDataSource(7, 1L, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void findLatest_mergesAllShards() {
+        ShardedBlobMetadataStore store = store(SHARDS);
+        IntStream.range(0, 30).forEach(userId -> store.save(blob(userId, 1L, "f" + userId)));
+
+        assertThat(store.findLatest(10)).hasSize(10);
+        assertThat(store.findLatest(100)).hasSize(30);
+    }
+
+    @Test
+    void resharder_movesMisplacedUsers_andIsIdempotent() {
+        List<String> oldShards = List.of("s0", "s1");
+        ShardedBlobMetadataStore oldStore = store(oldShards);
+        IntStream.range(0, 60).forEach(userId -> {
+            oldStore.save(blob(userId, 1L, "x" + userId));
+            oldStore.save(blob(userId, 1L, "y" + userId));
+        });
+
+        ConsistentHashRing newRing = new ConsistentHashRing(SHARDS, 128);
+        BlobMetadataResharder resharder = new BlobMetadataResharder(databases.getTemplates(), newRing);
+
+        assertThat(resharder.plan()).isNotEmpty().containsOnlyKeys("s0->s2", "s1->s2");
+        Map<String, Integer> moved = resharder.reshard();
+        assertThat(moved).containsOnlyKeys("s2");
+
+        assertThat(resharder.plan()).isEmpty();
+        assertThat(resharder.reshard()).isEmpty();
+
+        ShardedBlobMetadataStore newStore = store(SHARDS);
+        IntStream.range(0, 60).forEach(userId ->
+                assertThat(newStore.findByUserAndDataSource(userId, 1L, PageRequest.of(0, 10)).getTotalElements())
+                        .isEqualTo(2));
+        assertThat(newStore.countByShard().get("s2")).isEqualTo(moved.get("s2").longValue());
+    }
+
+    @Test
+    void resharder_drainsShardTakenOffTheRing() {
+        ShardedBlobMetadataStore oldStore = store(SHARDS);
+        IntStream.range(0, 30).forEach(userId -> oldStore.save(blob(userId, 1L, "x" + userId)));
+
+        new BlobMetadataResharder(databases.getTemplates(), new ConsistentHashRing(List.of("s0", "s1"), 128)).reshard();
+
+        Map<String, Long> counts = oldStore.countByShard();
+        assertThat(counts.get("s2")).isZero();
+        assertThat(counts.get("s0") + counts.get("s1")).isEqualTo(30);
+    }
+}
@@ -1,12 +1,22 @@
 package org.dataledge.gateway;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import org.dataledge.gateway.config.CoalescingProperties;
+import org.dataledge.gateway.config.JwtKeyProperties;
+import org.dataledge.gateway.config.LoadBalancingProperties;
+import org.dataledge.gateway.config.OpenEndpointsProperties;
+import org.dataledge.gateway.config.RateLimitProperties;
+import org.dataledge.gateway.config.RegistrySnapshotProperties;
+import org.dataledge.gateway.config.ResilienceProperties;
+import org.dataledge.gateway.config.ResponseCacheProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.web.bind.annotation.RestController;
 
-@EnableConfigurationProperties({UriConfiguration.class})
+@EnableConfigurationProperties({UriConfiguration.class, OpenEndpointsProperties.class, RateLimitProperties.class,
+        ResponseCacheProperties.class, CoalescingProperties.class, ResilienceProperties.class,
+        LoadBalancingProperties.class, RegistrySnapshotProperties.class, JwtKeyProperties.class})
 @SpringBootApplication
 @RestController
 public class GatewayApplication {
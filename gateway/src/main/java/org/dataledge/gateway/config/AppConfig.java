@@ -1,8 +1,10 @@
 package org.dataledge.gateway.config;
 
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class AppConfig {
@@ -10,4 +12,13 @@ public class AppConfig {
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    /**
+     * For calls the gateway makes itself, {@code http://SERVICE-NAME} hosts go through the load balancer.
+     */
+    @Bean
+    public WebClient serviceWebClient(WebClient.Builder builder,
+                                      ReactorLoadBalancerExchangeFilterFunction loadBalancer) {
+        return builder.clone().filter(loadBalancer).build();
+    }
 }
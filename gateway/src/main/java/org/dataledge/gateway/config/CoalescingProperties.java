@@ -0,0 +1,23 @@
+package org.dataledge.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Limits of {@code RequestCoalescingFilter}, shared by all routes.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * Distinct requests in flight at once, further ones are forwarded without coalescing.
+     */
+    private int maxInFlight = 10_000;
+
+    /**
+     * Larger responses are not shared, waiting requests then go upstream themselves.
+     */
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+}
@@ -0,0 +1,27 @@
+package org.dataledge.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keys accepted for access tokens, by the {@code kid} the identity service writes into their header.
+ * Mirrors {@code identity.jwt.*}: during a rotation the new secret is added here before the identity service
+ * signs with it, the retired one stays until its last token has expired.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.jwt")
+public class JwtKeyProperties {
+
+    /**
+     * kid of {@code JWT_SECRET}. Tokens without a kid are checked against {@code JWT_SECRET}.
+     */
+    private String keyId = "default";
+
+    /**
+     * Further secrets by kid, base64 like {@code JWT_SECRET}.
+     */
+    private Map<String, String> verificationKeys = new LinkedHashMap<>();
+}
@@ -0,0 +1,45 @@
+package org.dataledge.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Instance choice for {@code lb://} routes.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.loadbalancer")
+public class LoadBalancingProperties {
+
+    public enum Strategy {
+        /** Fewest requests in flight, ties broken at random */
+        LEAST_OUTSTANDING,
+        /** Lowest latency EWMA weighted by requests in flight, over all instances */
+        EWMA,
+        /** As EWMA, but comparing only two instances picked at random, keeps new and recovering pods from a stampede */
+        P2C_EWMA
+    }
+
+    private Strategy strategy = Strategy.P2C_EWMA;
+
+    /**
+     * Time constant of the latency average, a sample this old weighs about a third of a fresh one.
+     */
+    private Duration ewmaDecay = Duration.ofSeconds(10);
+
+    /**
+     * Latency recorded for a failed request, so failing instances lose traffic quickly.
+     */
+    private Duration failurePenalty = Duration.ofSeconds(1);
+
+    /**
+     * Eureka metadata key, instances with the value {@code true} only get traffic when no other instance is up.
+     */
+    private String warmupMetadataKey = "warming-up";
+
+    /**
+     * Statistics of instances not seen for this long are dropped.
+     */
+    private Duration statsExpiry = Duration.ofMinutes(10);
+}
@@ -0,0 +1,37 @@
+package org.dataledge.gateway.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Endpoints reachable without an access token.
+ * Patterns use {@code /} separated segments, {@code *} or {@code {name}} match one segment
+ * and a trailing {@code /**} matches any remainder, including none.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.security")
+public class OpenEndpointsProperties {
+
+    private List<OpenEndpoint> openEndpoints = new ArrayList<>(List.of(
+            new OpenEndpoint("/auth/register", List.of()),
+            new OpenEndpoint("/auth/authenticate", List.of()),
+            new OpenEndpoint("/eureka/**", List.of())
+    ));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OpenEndpoint {
+        private String pattern;
+
+        /**
+         * HTTP methods the rule applies to, empty means all methods.
+         */
+        private List<String> methods = new ArrayList<>();
+    }
+}
@@ -0,0 +1,42 @@
+package org.dataledge.gateway.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitConfig {
+
+    public static final String EXCHANGE_NAME = "user.exchange";
+
+    public static final String TOKEN_REVOKED_ROUTING_KEY = "token.revoked";
+
+    /**
+     * One server-named, auto-deleted queue per gateway instance, every instance needs every revocation.
+     */
+    @Bean
+    public Queue revocationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public TopicExchange exchange() {
+        return new TopicExchange(EXCHANGE_NAME);
+    }
+
+    @Bean
+    public Binding revocationBinding(Queue revocationQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(revocationQueue).to(exchange).with(TOKEN_REVOKED_ROUTING_KEY);
+    }
+
+    @Bean
+    public MessageConverter converter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
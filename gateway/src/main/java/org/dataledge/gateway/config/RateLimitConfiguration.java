@@ -0,0 +1,33 @@
+package org.dataledge.gateway.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataledge.gateway.ratelimit.InMemoryRateLimiterBackend;
+import org.dataledge.gateway.ratelimit.RateLimiterBackend;
+import org.dataledge.gateway.ratelimit.RedisRateLimiterBackend;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+@Configuration
+public class RateLimitConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.backend", havingValue = "memory", matchIfMissing = true)
+    public RateLimiterBackend inMemoryRateLimiterBackend(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        InMemoryRateLimiterBackend backend = new InMemoryRateLimiterBackend(
+                properties.getMaxKeys(), properties.getIdleExpiry(), System::nanoTime);
+        Gauge.builder("gateway.ratelimit.buckets", backend, InMemoryRateLimiterBackend::trackedKeys)
+                .description("Token buckets held in memory")
+                .register(meterRegistry);
+        return backend;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.backend", havingValue = "redis")
+    public RateLimiterBackend redisRateLimiterBackend(RateLimitProperties properties,
+                                                      ReactiveStringRedisTemplate redisTemplate) {
+        return new RedisRateLimiterBackend(redisTemplate, properties.getRedisKeyPrefix());
+    }
+}
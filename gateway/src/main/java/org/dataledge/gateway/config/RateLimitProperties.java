@@ -0,0 +1,35 @@
+package org.dataledge.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Where the token buckets of {@code UserRateLimitFilter} live. Limits themselves are set per route.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    public enum Backend {
+        /** Buckets per gateway instance, the effective limit grows with the replica count */
+        MEMORY,
+        /** Buckets shared through Redis */
+        REDIS
+    }
+
+    private Backend backend = Backend.MEMORY;
+
+    /**
+     * Buckets kept by the in-memory backend, least recently used ones go first.
+     */
+    private long maxKeys = 100_000;
+
+    /**
+     * Idle buckets are full again and dropped after this.
+     */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    private String redisKeyPrefix = "gateway:ratelimit:";
+}
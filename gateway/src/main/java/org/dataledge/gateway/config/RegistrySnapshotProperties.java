@@ -0,0 +1,24 @@
+package org.dataledge.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Last known good copy of the service registry on local disk, routed from while Eureka has no instances yet.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.registry-snapshot")
+public class RegistrySnapshotProperties {
+
+    private boolean enabled = true;
+
+    private Path path = Path.of(System.getProperty("java.io.tmpdir"), "gateway-registry-snapshot.json");
+
+    /**
+     * Instances older than this are not routed to any more, their addresses may belong to other pods by then.
+     */
+    private Duration maxAge = Duration.ofHours(6);
+}
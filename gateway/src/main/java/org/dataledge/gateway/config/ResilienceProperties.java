@@ -0,0 +1,25 @@
+package org.dataledge.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Last good GET responses kept by {@code RouteResilienceFilter} as fallbacks.
+ * Breakers and bulkheads themselves are configured under {@code resilience4j.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.resilience.last-good")
+public class ResilienceProperties {
+
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+    /**
+     * Older responses are not served as fallback any more.
+     */
+    private Duration maxAge = Duration.ofHours(1);
+}
@@ -0,0 +1,23 @@
+package org.dataledge.gateway.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataledge.gateway.filter.cache.ResponseCacheStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ResponseCacheConfiguration {
+
+    @Bean
+    public ResponseCacheStore responseCacheStore(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        ResponseCacheStore store = new ResponseCacheStore(
+                "gateway.response.cache", properties.getMaxSize().toBytes(), Clock.systemUTC(), meterRegistry);
+        Gauge.builder("gateway.response.cache.entries", store, ResponseCacheStore::size)
+                .description("Responses held by the gateway cache")
+                .register(meterRegistry);
+        return store;
+    }
+}
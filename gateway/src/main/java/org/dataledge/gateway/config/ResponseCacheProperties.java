@@ -0,0 +1,23 @@
+package org.dataledge.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Memory budget of {@code ResponseCacheFilter}, shared by all routes. Freshness is set per route.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * Bodies and headers of all cached responses together, least valuable entries are evicted first.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Larger responses are passed through without being cached.
+     */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+}
@@ -0,0 +1,12 @@
+package org.dataledge.gateway.config.exceptions;
+
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * Recorded as a circuit breaker failure when upstream answers with a 5xx, never thrown to the client.
+ */
+public class UpstreamServerErrorException extends RuntimeException {
+    public UpstreamServerErrorException(HttpStatusCode status) {
+        super("Upstream answered " + status.value());
+    }
+}
@@ -0,0 +1,222 @@
+package org.dataledge.gateway.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.common.DataLedgeUtil;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers the dashboard's first paint in one round trip. The user, the first page of datasources and the
+ * datasource types are fetched in parallel, the files of each listed datasource as soon as the listing arrives.
+ * Every section has its own timeout; a failed section is null in the payload and named in {@code errors},
+ * the rest is still returned. Only when every section failed the answer is 502.
+ * <p>
+ * Ends the filter chain, so the route needs no upstream. List it after {@code AuthenticationFilter},
+ * the sections are fetched for the user id it resolved.
+ * <pre>
+ * uri: no://op
+ * filters:
+ *   - AuthenticationFilter
+ *   - DashboardAggregationFilter
+ * </pre>
+ * Query parameters {@code pageNumber} and {@code pageSize} select the datasource page.
+ */
+@Component
+@Slf4j
+public class DashboardAggregationFilter extends AbstractGatewayFilterFactory<DashboardAggregationFilter.Config> {
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * A section's payload, or why there is none.
+     */
+    private record Section(String name, JsonNode body, String error) {
+
+        static Section ok(String name, JsonNode body) {
+            return new Section(name, body, null);
+        }
+
+        static Section failed(String name, String error) {
+            return new Section(name, null, error);
+        }
+    }
+
+    public DashboardAggregationFilter(@Qualifier("serviceWebClient") WebClient webClient,
+                                      ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return RouteFilterOrder.ordered((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String userId = request.getHeaders().getFirst(DataLedgeUtil.USER_ID_HEADER);
+            List<String> cookies = request.getHeaders().getOrEmpty(HttpHeaders.COOKIE);
+            String pageNumber = queryParam(request, "pageNumber", "0");
+            String pageSize = queryParam(request, "pageSize", "10");
+
+            Mono<Section> user = fetch("user", config.getUserTimeout(), webClient.get()
+                    .uri(config.getIdentityUri() + "/auth/me")
+                    .headers(headers -> headers.put(HttpHeaders.COOKIE, cookies)));
+
+            // Subscribed by both the datasources and the files section, fetched once
+            Mono<Section> datasources = fetch("datasources", config.getDatasourcesTimeout(), webClient.get()
+                    .uri(config.getDatasourceUri() + "/datasources?pageNumber={page}&pageSize={size}",
+                            pageNumber, pageSize)
+                    .header(DataLedgeUtil.USER_ID_HEADER, userId))
+                    .cache();
+
+            Mono<Section> types = fetch("datasourceTypes", config.getTypesTimeout(), webClient.get()
+                    .uri(config.getDatasourceUri() + "/datasource-types"));
+
+            Mono<List<Section>> files = datasources.flatMapMany(section -> datasourceIds(section.body()))
+                    .flatMap(id -> fetch("files." + id, config.getFilesTimeout(), webClient.get()
+                                    .uri(config.getDatasourceUri() + "/blob/getFiles?dsId={id}&size={size}&count=NONE",
+                                            id, config.getFilesPerDatasource())
+                                    .header(DataLedgeUtil.USER_ID_HEADER, userId)),
+                            config.getMaxFileRequests())
+                    .collectList();
+
+            return Mono.zip(user, datasources, types, files)
+                    .flatMap(sections -> write(exchange, List.of(sections.getT1(), sections.getT2(), sections.getT3()),
+                            sections.getT4()));
+        });
+    }
+
+    private Mono<Section> fetch(String name, Duration timeout, WebClient.RequestHeadersSpec<?> spec) {
+        String metricName = name.startsWith("files.") ? "files" : name;
+        return spec.retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout)
+                .map(body -> Section.ok(name, body))
+                .defaultIfEmpty(Section.ok(name, null))
+                .onErrorResume(e -> {
+                    log.warn("Dashboard section {} failed: {}", name, e.toString());
+                    return Mono.just(Section.failed(name, reason(e)));
+                })
+                .doOnNext(section -> meterRegistry.counter("gateway.bff.sections",
+                        "section", metricName, "outcome", section.error() == null ? "ok" : section.error())
+                        .increment());
+    }
+
+    private static Flux<Long> datasourceIds(JsonNode listing) {
+        if (listing == null || !listing.path("items").isArray()) {
+            return Flux.empty();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode item : listing.path("items")) {
+            if (item.hasNonNull("id")) {
+                ids.add(item.get("id").asLong());
+            }
+        }
+        return Flux.fromIterable(ids);
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, List<Section> sections, List<Section> files) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        ObjectNode errors = objectMapper.createObjectNode();
+        boolean anyOk = false;
+
+        for (Section section : sections) {
+            payload.set(section.name(), section.body());
+            if (section.error() != null) {
+                errors.put(section.name(), section.error());
+            } else {
+                anyOk = true;
+            }
+        }
+        ObjectNode filesByDatasource = payload.putObject("files");
+        for (Section section : files) {
+            String datasourceId = section.name().substring("files.".length());
+            filesByDatasource.set(datasourceId, section.body());
+            if (section.error() != null) {
+                errors.put(section.name(), section.error());
+            }
+        }
+        payload.set("errors", errors);
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (Exception e) {
+            return Mono.error(e);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(anyOk ? HttpStatus.OK : HttpStatus.BAD_GATEWAY);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        response.getHeaders().setCacheControl("no-store");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static String reason(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof WebClientResponseException responseException) {
+            return Integer.toString(responseException.getStatusCode().value());
+        }
+        return "unavailable";
+    }
+
+    private static String queryParam(ServerHttpRequest request, String name, String defaultValue) {
+        String value = request.getQueryParams().getFirst(name);
+        // Only digits are passed on, they end up in downstream URIs
+        return value != null && !value.isEmpty() && value.chars().allMatch(Character::isDigit) ? value : defaultValue;
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        /**
+         * Service base URIs, host names are resolved by the load balancer.
+         */
+        private String identityUri = "http://IDENTITY-SERVICE";
+        private String datasourceUri = "http://DATASOURCE-SERVICE";
+
+        private Duration userTimeout = Duration.ofSeconds(2);
+        private Duration datasourcesTimeout = Duration.ofSeconds(3);
+        private Duration typesTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Per datasource, counted from when the listing arrived.
+         */
+        private Duration filesTimeout = Duration.ofSeconds(3);
+
+        private int filesPerDatasource = 5;
+
+        /**
+         * File listings fetched at the same time.
+         */
+        private int maxFileRequests = 8;
+    }
+}
@@ -0,0 +1,333 @@
+package org.dataledge.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Getter;
+import lombok.Setter;
+import org.dataledge.gateway.filter.cache.DetachedServerHttpResponse;
+import org.dataledge.gateway.filter.cache.IsolatedExchange;
+import org.dataledge.gateway.filter.cache.ReplayableHeaders;
+import org.dataledge.gateway.filter.hedge.AttemptResponse;
+import org.dataledge.gateway.filter.hedge.RetryBudget;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cuts the latency tail of idempotent GET routes. When upstream has not answered within the route's recent p95,
+ * the same request is sent once more and the first answer wins, the other attempt is cancelled.
+ * A failed attempt, or a 502, 503 or 504, is retried right away instead.
+ * Either way a request makes at most one extra attempt, and only while the route's {@link RetryBudget} has a token.
+ * With the latency-aware load balancer the extra attempt usually lands on another instance, the first one
+ * still counts as outstanding.
+ * <p>
+ * Answers are buffered up to {@code max-body-bytes}. A larger answer wins as soon as it crosses that size and is
+ * streamed to the client from there, list only paths with small responses in {@code paths} to keep hedging them.
+ * Put it last, after {@code RouteResilienceFilter}, so breaker and bulkhead see one call per client request.
+ * <pre>
+ * filters:
+ *   - AuthenticationFilter
+ *   - name: HedgingFilter
+ *     args:
+ *       paths: /datasources
+ *       budget-ratio: 0.1
+ * </pre>
+ */
+@Component
+public class HedgingFilter extends AbstractGatewayFilterFactory<HedgingFilter.Config> {
+
+    // Below this many samples the p95 means little, hedge late until the route has some history
+    private static final long MIN_SAMPLES = 20;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+
+    public HedgingFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        PathMethodTrie paths = null;
+        if (config.getPaths() != null && !config.getPaths().isEmpty()) {
+            paths = new PathMethodTrie();
+            for (String path : config.getPaths()) {
+                paths.add(path, List.of(HttpMethod.GET.name()));
+            }
+        }
+        PathMethodTrie hedgedPaths = paths;
+
+        RetryBudget budget = new RetryBudget(config.getBudgetRatio(), config.getBudgetMinPerSecond(),
+                config.getBudgetMaxTokens(), System::nanoTime);
+        Gauge.builder("gateway.hedging.budget.tokens", budget, RetryBudget::tokens)
+                .description("Extra attempts the route may still send")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        HedgeDelay delay = new HedgeDelay(Timer.builder("gateway.hedging.upstream.latency")
+                .description("Time to a complete upstream answer on hedged routes")
+                .tag("route", routeId)
+                .publishPercentiles(0.95)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry), config.getMinDelay(), config.getMaxDelay());
+        Outcomes outcomes = new Outcomes(routeId);
+
+        return RouteFilterOrder.ordered((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!HttpMethod.GET.equals(request.getMethod())
+                    || (hedgedPaths != null && !hedgedPaths.matches(request.getPath().pathWithinApplication(), HttpMethod.GET))) {
+                return chain.filter(exchange);
+            }
+
+            budget.deposit();
+            AtomicBoolean extraSent = new AtomicBoolean();
+            AtomicBoolean decided = new AtomicBoolean();
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+
+            Mono<AttemptResponse.Answer> primary = attempt(exchange, chain, config, delay)
+                    .flatMap(answer -> isRetryable(answer) && claimExtra(extraSent, budget, outcomes)
+                            ? Mono.fromRunnable(answer::discard).then(retry(exchange, chain, config, delay, outcomes))
+                            : Mono.just(answer))
+                    .onErrorResume(e -> claimExtra(extraSent, budget, outcomes)
+                            ? retry(exchange, chain, config, delay, outcomes)
+                            : Mono.error(e))
+                    .doOnError(e -> primaryFailed.tryEmitEmpty())
+                    .filter(answer -> decide(decided, answer));
+
+            // A failed primary ends the wait for the hedge, which then completes empty
+            Mono<AttemptResponse.Answer> hedge = Mono.delay(delay.current())
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(tick -> claimExtra(extraSent, budget, outcomes))
+                    .flatMap(tick -> {
+                        outcomes.hedged.increment();
+                        return attempt(exchange, chain, config, delay);
+                    })
+                    .filter(answer -> !isRetryable(answer) ? decide(decided, answer) : discard(answer))
+                    .doOnNext(answer -> outcomes.hedgeWon.increment());
+
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorMap(NoSuchElementException.class, HedgingFilter::firstFailure)
+                    .flatMap(answer -> answer.streamed()
+                            ? stream(exchange.getResponse(), answer, outcomes)
+                            : replay(exchange.getResponse(), answer));
+        });
+    }
+
+    /**
+     * One upstream call on its own copy of the exchange. A buffered answer is emitted once the call completed,
+     * a streamed one as soon as it crosses the buffer, the call then runs on until the stream is written or
+     * discarded. A call cancelled before it answered is cancelled upstream.
+     */
+    private static Mono<AttemptResponse.Answer> attempt(ServerWebExchange exchange, GatewayFilterChain chain,
+                                                        Config config, HedgeDelay delay) {
+        return Mono.create(sink -> {
+            AtomicReference<AttemptResponse.Answer> buffered = new AtomicReference<>();
+            AtomicBoolean streamed = new AtomicBoolean();
+            AttemptResponse response = new AttemptResponse(new DetachedServerHttpResponse(), config.getMaxBodyBytes(),
+                    answer -> {
+                        if (answer.streamed()) {
+                            streamed.set(true);
+                            sink.success(answer);
+                        } else {
+                            buffered.set(answer);
+                        }
+                    });
+            long start = System.nanoTime();
+            Disposable call = chain.filter(new IsolatedExchange(exchange, response))
+                    .contextWrite(sink.contextView())
+                    .subscribe(null,
+                            e -> {
+                                if (!streamed.get()) {
+                                    sink.error(e);
+                                }
+                            },
+                            () -> {
+                                if (streamed.get()) {
+                                    return;
+                                }
+                                AttemptResponse.Answer answer = buffered.get();
+                                if (answer == null) {
+                                    sink.error(new IllegalStateException(
+                                            "Upstream attempt completed without a response"));
+                                    return;
+                                }
+                                delay.record(System.nanoTime() - start);
+                                sink.success(answer);
+                            });
+            sink.onCancel(call);
+        });
+    }
+
+    private static Mono<AttemptResponse.Answer> retry(ServerWebExchange exchange, GatewayFilterChain chain,
+                                                      Config config, HedgeDelay delay, Outcomes outcomes) {
+        outcomes.retried.increment();
+        return attempt(exchange, chain, config, delay);
+    }
+
+    /**
+     * Only the first usable answer is written, one arriving as the other attempt is cancelled is discarded.
+     */
+    private static boolean decide(AtomicBoolean decided, AttemptResponse.Answer answer) {
+        return decided.compareAndSet(false, true) || discard(answer);
+    }
+
+    private static boolean discard(AttemptResponse.Answer answer) {
+        answer.discard();
+        return false;
+    }
+
+    private static boolean claimExtra(AtomicBoolean extraSent, RetryBudget budget, Outcomes outcomes) {
+        if (!extraSent.compareAndSet(false, true)) {
+            return false;
+        }
+        if (!budget.tryWithdraw()) {
+            outcomes.budgetExhausted.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isRetryable(AttemptResponse.Answer answer) {
+        HttpStatusCode status = answer.response().getStatusCode();
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    private static Mono<Void> replay(ServerHttpResponse response, AttemptResponse.Answer answer) {
+        response.setStatusCode(answer.response().getStatusCode());
+        response.getHeaders().putAll(ReplayableHeaders.copyOf(answer.response().getHeaders()));
+        response.getHeaders().setContentLength(answer.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(answer.body())));
+    }
+
+    private static Mono<Void> stream(ServerHttpResponse response, AttemptResponse.Answer answer, Outcomes outcomes) {
+        // Too large to buffer, the winning attempt's body goes on to the client as it arrives
+        outcomes.streamed.increment();
+        response.setStatusCode(answer.response().getStatusCode());
+        response.getHeaders().putAll(ReplayableHeaders.copyOf(answer.response().getHeaders()));
+        return response.writeWith(answer.stream());
+    }
+
+    private static Throwable firstFailure(NoSuchElementException e) {
+        // firstWithValue reports the attempts' own errors as its cause
+        List<Throwable> failures = e.getCause() != null ? Exceptions.unwrapMultiple(e.getCause()) : List.of();
+        return failures.isEmpty() ? e : failures.get(0);
+    }
+
+    /**
+     * Hedge delay from the route's recent p95, read from the timer at most once a second.
+     */
+    private static final class HedgeDelay {
+
+        private final Timer latency;
+        private final long minNanos;
+        private final long maxNanos;
+        private volatile long delayNanos;
+        private volatile long refreshedAt;
+
+        private HedgeDelay(Timer latency, Duration min, Duration max) {
+            this.latency = latency;
+            this.minNanos = min.toNanos();
+            this.maxNanos = Math.max(minNanos, max.toNanos());
+            this.delayNanos = maxNanos;
+            this.refreshedAt = System.nanoTime();
+        }
+
+        void record(long nanos) {
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        Duration current() {
+            long now = System.nanoTime();
+            if (now - refreshedAt >= DELAY_REFRESH_NANOS) {
+                refreshedAt = now;
+                delayNanos = compute();
+            }
+            return Duration.ofNanos(delayNanos);
+        }
+
+        private long compute() {
+            if (latency.count() < MIN_SAMPLES) {
+                return maxNanos;
+            }
+            for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.95) {
+                    long p95 = (long) percentile.value(TimeUnit.NANOSECONDS);
+                    return Math.min(maxNanos, Math.max(minNanos, p95));
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    private final class Outcomes {
+        private final Counter hedged;
+        private final Counter hedgeWon;
+        private final Counter retried;
+        private final Counter budgetExhausted;
+        private final Counter streamed;
+
+        private Outcomes(String routeId) {
+            this.hedged = counter(routeId, "hedged");
+            this.hedgeWon = counter(routeId, "hedge-won");
+            this.retried = counter(routeId, "retried");
+            this.budgetExhausted = counter(routeId, "budget-exhausted");
+            this.streamed = counter(routeId, "streamed");
+        }
+
+        private Counter counter(String routeId, String outcome) {
+            return Counter.builder("gateway.hedging.requests")
+                    .description("Hedged route requests that needed more than one attempt, by outcome")
+                    .tag("route", routeId)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        /**
+         * GET paths to hedge, all GETs of the route when empty. Streaming endpoints do not belong here.
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Bounds for the hedge delay, which follows the route's p95 in between.
+         */
+        private Duration minDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /**
+         * Extra attempts allowed per request, on average, plus a floor per second for quiet routes.
+         */
+        private double budgetRatio = 0.1;
+        private double budgetMinPerSecond = 1;
+        private int budgetMaxTokens = 10;
+
+        private int maxBodyBytes = 1024 * 1024;
+        private String routeId;
+    }
+}
@@ -0,0 +1,115 @@
+package org.dataledge.gateway.filter;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment trie of path patterns with the HTTP methods allowed per pattern.
+ * Built once from configuration; matching walks the already parsed request path and allocates nothing.
+ * Supported syntax: literal segments, {@code *} or {@code {name}} for one segment, trailing {@code **} for the rest.
+ */
+public final class PathMethodTrie {
+
+    static final int ALL_METHODS = -1;
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node anySegment;
+        // Bit masks of methods for which the path ends here, or for which any remainder matches
+        private int terminalMethods;
+        private int remainderMethods;
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * @param pattern e.g. {@code /auth/register} or {@code /eureka/**}
+     * @param methods method names, empty for all methods
+     */
+    public void add(String pattern, List<String> methods) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Path pattern must start with '/': " + pattern);
+        }
+
+        int mask = methodMask(methods);
+        String[] segments = pattern.substring(1).split("/", -1);
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported at the end of a pattern: " + pattern);
+                }
+                node.remainderMethods |= mask;
+                return;
+            }
+            if (segment.isEmpty() && segments.length == 1) {
+                // Pattern "/" itself
+                break;
+            }
+            if ("*".equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (node.anySegment == null) {
+                    node.anySegment = new Node();
+                }
+                node = node.anySegment;
+            } else {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        node.terminalMethods |= mask;
+    }
+
+    public boolean matches(PathContainer path, HttpMethod method) {
+        return match(root, path.elements(), 0, methodBit(method));
+    }
+
+    private static boolean match(Node node, List<PathContainer.Element> elements, int index, int methodBit) {
+        if ((node.remainderMethods & methodBit) != 0) {
+            return true;
+        }
+        if (index == elements.size()) {
+            return (node.terminalMethods & methodBit) != 0;
+        }
+
+        // Elements alternate separator and segment, a trailing separator or "//" never matches a literal rule
+        if (!(elements.get(index) instanceof PathContainer.Separator)
+                || index + 1 == elements.size()
+                || !(elements.get(index + 1) instanceof PathContainer.PathSegment segment)) {
+            return false;
+        }
+
+        Node child = node.children.get(segment.valueToMatch());
+        if (child != null && match(child, elements, index + 2, methodBit)) {
+            return true;
+        }
+        return node.anySegment != null && match(node.anySegment, elements, index + 2, methodBit);
+    }
+
+    static int methodMask(List<String> methods) {
+        if (methods == null || methods.isEmpty()) {
+            return ALL_METHODS;
+        }
+        int mask = 0;
+        for (String method : methods) {
+            mask |= methodBit(HttpMethod.valueOf(method.trim().toUpperCase()));
+        }
+        return mask;
+    }
+
+    private static int methodBit(HttpMethod method) {
+        // HttpMethod is not an enum any more, only the standard methods get their own bit
+        if (HttpMethod.GET.equals(method)) return 1;
+        if (HttpMethod.HEAD.equals(method)) return 1 << 1;
+        if (HttpMethod.POST.equals(method)) return 1 << 2;
+        if (HttpMethod.PUT.equals(method)) return 1 << 3;
+        if (HttpMethod.PATCH.equals(method)) return 1 << 4;
+        if (HttpMethod.DELETE.equals(method)) return 1 << 5;
+        if (HttpMethod.OPTIONS.equals(method)) return 1 << 6;
+        if (HttpMethod.TRACE.equals(method)) return 1 << 7;
+        return 1 << 8;
+    }
+}
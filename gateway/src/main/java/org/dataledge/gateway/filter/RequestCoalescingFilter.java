@@ -0,0 +1,148 @@
+package org.dataledge.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.CoalescingProperties;
+import org.dataledge.gateway.filter.cache.ReplayableHeaders;
+import org.dataledge.gateway.filter.cache.RequestKey;
+import org.dataledge.gateway.filter.cache.ResponseCapture;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight for GETs: identical requests of one user that arrive while the first is still in flight
+ * wait for its response instead of going upstream. List it after {@code AuthenticationFilter},
+ * and after {@code ResponseCacheFilter} where both are used, so only cache misses are coalesced.
+ * <pre>
+ * filters:
+ *   - AuthenticationFilter
+ *   - name: RequestCoalescingFilter
+ *     args:
+ *       max-wait: PT10S
+ * </pre>
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    public static final String COALESCED_HEADER = "X-Coalesced";
+
+    // Tells waiting requests to go upstream themselves
+    private static final SharedResponse NOT_SHARED = new SharedResponse(null, null, null);
+
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    private final ConcurrentHashMap<RequestKey, Sinks.One<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final int maxInFlight;
+    private final int maxBodyBytes;
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescingFilter(CoalescingProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.maxInFlight = properties.getMaxInFlight();
+        this.maxBodyBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxBodySize().toBytes());
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.coalescing.in.flight", inFlight, ConcurrentHashMap::size)
+                .description("Distinct GETs currently forwarded with others waiting on them")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        Counter leaders = counter(routeId, "leader");
+        Counter collapsed = counter(routeId, "collapsed");
+        Counter fallbacks = counter(routeId, "fallback");
+        Counter bypassed = counter(routeId, "bypass");
+
+        return RouteFilterOrder.ordered((exchange, chain) -> {
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod()) || inFlight.size() >= maxInFlight) {
+                bypassed.increment();
+                return chain.filter(exchange);
+            }
+
+            String userId = exchange.getRequest().getHeaders().getFirst(DataLedgeUtil.USER_ID_HEADER);
+            RequestKey key = RequestKey.of(routeId, userId != null ? userId : "", exchange.getRequest());
+            Sinks.One<SharedResponse> flight = Sinks.one();
+            Sinks.One<SharedResponse> leader = inFlight.putIfAbsent(key, flight);
+
+            if (leader != null) {
+                return leader.asMono()
+                        .timeout(config.getMaxWait(), Mono.just(NOT_SHARED))
+                        .flatMap(shared -> {
+                            if (shared == NOT_SHARED) {
+                                fallbacks.increment();
+                                return chain.filter(exchange);
+                            }
+                            collapsed.increment();
+                            return replay(exchange, shared);
+                        });
+            }
+
+            leaders.increment();
+            ResponseCapture capture = new ResponseCapture(exchange.getResponse(), maxBodyBytes,
+                    captured -> land(key, flight, !isShareable(captured) ? NOT_SHARED : new SharedResponse(
+                            captured.response().getStatusCode(),
+                            ReplayableHeaders.copyOf(captured.response().getHeaders()),
+                            captured.body())));
+
+            return chain.filter(exchange.mutate().response(capture).build())
+                    // Errors and cancellations release the waiters too, they then try on their own
+                    .doFinally(signal -> land(key, flight, NOT_SHARED));
+        });
+    }
+
+    private void land(RequestKey key, Sinks.One<SharedResponse> flight, SharedResponse response) {
+        // Requests arriving from now on start a new flight rather than get an answer that is already complete
+        inFlight.remove(key, flight);
+        flight.tryEmitValue(response);
+    }
+
+    private static boolean isShareable(ResponseCapture.Captured captured) {
+        return captured.body() != null && captured.response().getStatusCode() != null;
+    }
+
+    private static Mono<Void> replay(ServerWebExchange exchange, SharedResponse shared) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(shared.status());
+        response.getHeaders().putAll(shared.headers());
+        response.getHeaders().setContentLength(shared.body().length);
+        response.getHeaders().set(COALESCED_HEADER, "true");
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body())));
+    }
+
+    private Counter counter(String routeId, String role) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("GETs by coalescing role, collapsed ones were answered without an upstream call,"
+                        + " fallbacks waited and then went upstream themselves")
+                .tag("route", routeId)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        /**
+         * Longest a request waits on another, after that it goes upstream itself.
+         */
+        private Duration maxWait = Duration.ofSeconds(10);
+        private String routeId;
+    }
+}
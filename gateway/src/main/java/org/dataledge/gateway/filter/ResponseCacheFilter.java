@@ -0,0 +1,276 @@
+package org.dataledge.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.ResponseCacheProperties;
+import org.dataledge.gateway.filter.cache.CacheControl;
+import org.dataledge.gateway.filter.cache.CachedResponse;
+import org.dataledge.gateway.filter.cache.DetachedServerHttpResponse;
+import org.dataledge.gateway.filter.cache.IsolatedExchange;
+import org.dataledge.gateway.filter.cache.ReplayableHeaders;
+import org.dataledge.gateway.filter.cache.RequestKey;
+import org.dataledge.gateway.filter.cache.ResponseCacheStore;
+import org.dataledge.gateway.filter.cache.ResponseCapture;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Caches successful GET responses of a route, per user by default. List it after {@code AuthenticationFilter}.
+ * <ul>
+ *     <li>Freshness comes from the upstream Cache-Control ({@code s-maxage}, {@code max-age}), else from {@code ttl}.
+ *     {@code no-store}, {@code no-cache} and responses setting cookies are never stored.</li>
+ *     <li>Within {@code stale-while-revalidate} a stale entry is served at once and refreshed in the background,
+ *     conditionally when upstream sent an ETag.</li>
+ *     <li>Clients get an ETag on cached responses and a 304 when their If-None-Match matches.</li>
+ *     <li>A successful non-GET request through the route drops the user's entries of that route.</li>
+ * </ul>
+ * <pre>
+ * filters:
+ *   - AuthenticationFilter
+ *   - name: ResponseCacheFilter
+ *     args:
+ *       ttl: PT5M
+ *       stale-while-revalidate: PT1M
+ *       scope: ROUTE
+ * </pre>
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    public static final String CACHE_STATUS_HEADER = ReplayableHeaders.CACHE_STATUS_HEADER;
+
+    public enum Scope {
+        /** Entries per user, for anything derived from the caller's data */
+        USER,
+        /** One entry for all users, for reference data such as datasource types */
+        ROUTE
+    }
+
+    private final ResponseCacheStore store;
+    private final int maxEntryBytes;
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCacheFilter(ResponseCacheStore store,
+                               ResponseCacheProperties properties,
+                               MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.store = store;
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxEntrySize().toBytes());
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        Counter hits = counter(routeId, "hit");
+        Counter staleHits = counter(routeId, "stale");
+        Counter misses = counter(routeId, "miss");
+        Counter bypassed = counter(routeId, "bypass");
+
+        return RouteFilterOrder.ordered((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String userId = request.getHeaders().getFirst(DataLedgeUtil.USER_ID_HEADER);
+
+            if (!HttpMethod.GET.equals(request.getMethod())) {
+                return chain.filter(exchange).doOnSuccess(done -> invalidateAfterChange(exchange, routeId, userId));
+            }
+
+            CacheControl requested = CacheControl.parse(request.getHeaders().get(HttpHeaders.CACHE_CONTROL));
+            if (requested.noStore()) {
+                bypassed.increment();
+                return chain.filter(exchange);
+            }
+
+            RequestKey key = RequestKey.of(
+                    routeId,
+                    config.getScope() == Scope.ROUTE ? null : (userId != null ? userId : ""),
+                    request);
+            // no-cache from the client asks for an end-to-end reload, the answer still refreshes the entry
+            CachedResponse cached = requested.noCache() ? null : store.get(key);
+
+            if (cached == null) {
+                misses.increment();
+                exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+                return fetch(exchange, chain, key, config, null, exchange.getResponse());
+            }
+
+            Instant now = store.now();
+            if (cached.isFresh(now)) {
+                hits.increment();
+                return serve(exchange, cached, now, "HIT");
+            }
+
+            staleHits.increment();
+            if (store.startRevalidation(key)) {
+                fetch(exchange, chain, key, config, cached, new DetachedServerHttpResponse())
+                        .doFinally(signal -> store.endRevalidation(key))
+                        .subscribe(null, e -> log.warn("Revalidation of {} failed: {}", key, e.getMessage()));
+            }
+            return serve(exchange, cached, now, "STALE");
+        });
+    }
+
+    /**
+     * Forwards the request and stores the answer. With {@code previous} set this is a revalidation of that entry,
+     * run in the background on an {@link IsolatedExchange}: the routing filters it passes record their state in
+     * exchange attributes, which must not leak into the client's exchange that was already served.
+     */
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, RequestKey key,
+                             Config config, CachedResponse previous, ServerHttpResponse target) {
+        // Conditionals of the client are answered by the gateway, upstream only sees its own validator
+        ServerHttpRequest forwarded = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(HttpHeaders.IF_NONE_MATCH);
+                    headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                    if (previous != null && previous.upstreamEtag() != null) {
+                        headers.setIfNoneMatch(previous.upstreamEtag());
+                    }
+                })
+                .build();
+        ResponseCapture capture = new ResponseCapture(target, maxEntryBytes,
+                captured -> store(key, captured, config, previous));
+
+        ServerWebExchange mutated = exchange.mutate().request(forwarded).response(capture).build();
+        return chain.filter(previous != null ? new IsolatedExchange(mutated, capture) : mutated);
+    }
+
+    private void store(RequestKey key, ResponseCapture.Captured captured, Config config,
+                       CachedResponse previous) {
+        ServerHttpResponse response = captured.response();
+        HttpStatusCode status = response.getStatusCode();
+        HttpHeaders headers = response.getHeaders();
+        CacheControl cacheControl = CacheControl.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+        Instant now = store.now();
+
+        if (previous != null && HttpStatus.NOT_MODIFIED.equals(status)) {
+            Instant freshUntil = now.plus(freshness(cacheControl, config));
+            store.put(key, previous.revalidated(now, freshUntil, freshUntil.plus(staleWindow(cacheControl, config))));
+            return;
+        }
+        if (!HttpStatus.OK.equals(status) || captured.body() == null || cacheControl.noStore()
+                || cacheControl.noCache() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return;
+        }
+
+        Duration freshness = freshness(cacheControl, config);
+        Duration staleWindow = staleWindow(cacheControl, config);
+        if (freshness.isZero() && staleWindow.isZero()) {
+            return;
+        }
+
+        String upstreamEtag = headers.getETag();
+        Instant freshUntil = now.plus(freshness);
+        store.put(key, new CachedResponse(
+                status,
+                ReplayableHeaders.copyOf(headers),
+                captured.body(),
+                upstreamEtag != null ? upstreamEtag : bodyEtag(captured.body()),
+                upstreamEtag,
+                now,
+                freshUntil,
+                freshUntil.plus(staleWindow)));
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, CachedResponse cached, Instant now, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.setETag(cached.etag());
+        headers.set(HttpHeaders.AGE, Long.toString(Math.max(0, Duration.between(cached.storedAt(), now).toSeconds())));
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+
+        if (etagMatches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    private void invalidateAfterChange(ServerWebExchange exchange, String routeId, String userId) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status != null && status.is2xxSuccessful() && !HttpMethod.HEAD.equals(exchange.getRequest().getMethod())) {
+            store.invalidate(routeId, userId != null ? userId : "");
+        }
+    }
+
+    private static Duration freshness(CacheControl cacheControl, Config config) {
+        return cacheControl.maxAge() != null ? cacheControl.maxAge() : config.getTtl();
+    }
+
+    private static Duration staleWindow(CacheControl cacheControl, Config config) {
+        return cacheControl.staleWhileRevalidate() != null
+                ? cacheControl.staleWhileRevalidate()
+                : config.getStaleWhileRevalidate();
+    }
+
+    private static boolean etagMatches(List<String> ifNoneMatch, String etag) {
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch) {
+            // Weak comparison, If-None-Match only asks whether the representation changed
+            if ("*".equals(candidate) || opaqueTag(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String bodyEtag(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return "W/\"" + Integer.toHexString(body.length) + '-' + Long.toHexString(crc.getValue()) + '"';
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.response.cache.requests")
+                .description("Requests seen by the response cache")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        /**
+         * Freshness when upstream sends no max-age.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /**
+         * Window after freshness in which stale entries are served while refreshing, unless upstream sets one.
+         */
+        private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+
+        private Scope scope = Scope.USER;
+        private String routeId;
+    }
+}
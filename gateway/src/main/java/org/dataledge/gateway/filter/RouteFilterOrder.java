@@ -0,0 +1,24 @@
+package org.dataledge.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+
+/**
+ * Order of the route filters in this package. Unordered route filters are ordered by their position in the route,
+ * after {@link NettyWriteResponseFilter}, which then copies the upstream body to the response it was handed
+ * itself, past any response decorator or exchange copy a route filter passed down the chain.
+ * Sharing one order just before it keeps them in the order the route lists them, the sort is stable.
+ * Built-in filters listed in a route still run after these.
+ */
+final class RouteFilterOrder {
+
+    static final int BEFORE_RESPONSE_WRITE = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private RouteFilterOrder() {
+    }
+
+    static GatewayFilter ordered(GatewayFilter filter) {
+        return new OrderedGatewayFilter(filter, BEFORE_RESPONSE_WRITE);
+    }
+}
@@ -0,0 +1,179 @@
+package org.dataledge.gateway.filter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histogram per route and outcome, and the gateway's concurrency.
+ * <ul>
+ *     <li>{@code gateway.route.latency}: whole time in the gateway, route filters and upstream included</li>
+ *     <li>{@code gateway.requests.in.flight}: requests currently inside, per route and for the pod</li>
+ *     <li>{@code gateway.requests.busy.seconds}: requests in flight integrated over time, running requests
+ *     included, its rate is the pod's average number of requests in flight, steadier than sampling the gauge
+ *     every scrape and the metric the HPA scales on</li>
+ * </ul>
+ * Runs first, so requests rejected by route filters are measured too.
+ */
+@Component
+public class RouteMetricsFilter implements GlobalFilter, Ordered {
+
+    enum Outcome {
+        SUCCESS("2xx"), REDIRECTION("3xx"), CLIENT_ERROR("4xx"), SERVER_ERROR("5xx"), ERROR("error"),
+        CANCELLED("cancelled");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        String tag() {
+            return tag;
+        }
+    }
+
+    /**
+     * Meters of one route, built on its first request.
+     */
+    private final class RouteMeters {
+        private final Timer[] latency = new Timer[Outcome.values().length];
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private RouteMeters(String routeId) {
+            for (Outcome outcome : Outcome.values()) {
+                latency[outcome.ordinal()] = Timer.builder("gateway.route.latency")
+                        .description("Time from a request entering the gateway until its response completed")
+                        .tag("route", routeId)
+                        .tag("outcome", outcome.tag)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry);
+            }
+            Gauge.builder("gateway.route.in.flight", inFlight, AtomicInteger::get)
+                    .description("Requests of the route currently in the gateway")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Requests in the gateway and their number integrated over time, advanced on every change and every read.
+     * A request running across scrapes adds to each of them, not all at once when it completes, so a burst of
+     * long requests shows in the rate while it lasts.
+     */
+    static final class BusyTime {
+        private final LongSupplier nanoTime;
+        private int inFlight;
+        private long busyNanos;
+        private long since;
+
+        BusyTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            this.since = nanoTime.getAsLong();
+        }
+
+        synchronized void started() {
+            advance();
+            inFlight++;
+        }
+
+        synchronized void ended() {
+            advance();
+            inFlight--;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized double busySeconds() {
+            advance();
+            return busyNanos / 1e9;
+        }
+
+        private void advance() {
+            long now = nanoTime.getAsLong();
+            busyNanos += inFlight * (now - since);
+            since = now;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, RouteMeters> routes = new ConcurrentHashMap<>();
+    private final BusyTime busyTime;
+
+    @Autowired
+    public RouteMetricsFilter(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::nanoTime);
+    }
+
+    public RouteMetricsFilter(MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.meterRegistry = meterRegistry;
+        this.busyTime = new BusyTime(nanoTime);
+        Gauge.builder("gateway.requests.in.flight", busyTime, BusyTime::inFlight)
+                .description("Requests currently in the gateway")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.requests.busy.seconds", busyTime, BusyTime::busySeconds)
+                .description("Requests in flight integrated over time, rate() of it is the average concurrency")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteMeters meters = routes.computeIfAbsent(route != null ? route.getId() : "none", RouteMeters::new);
+        long start = System.nanoTime();
+        busyTime.started();
+        meters.inFlight.incrementAndGet();
+
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    long elapsed = System.nanoTime() - start;
+                    busyTime.ended();
+                    meters.inFlight.decrementAndGet();
+                    meters.latency[outcome(signal, exchange.getResponse().getStatusCode()).ordinal()]
+                            .record(elapsed, TimeUnit.NANOSECONDS);
+                });
+    }
+
+    static Outcome outcome(SignalType signal, HttpStatusCode status) {
+        if (signal == SignalType.CANCEL) {
+            return Outcome.CANCELLED;
+        }
+        if (signal == SignalType.ON_ERROR) {
+            return Outcome.ERROR;
+        }
+        if (status == null || status.is2xxSuccessful()) {
+            return Outcome.SUCCESS;
+        }
+        if (status.is3xxRedirection()) {
+            return Outcome.REDIRECTION;
+        }
+        return status.is4xxClientError() ? Outcome.CLIENT_ERROR : Outcome.SERVER_ERROR;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,218 @@
+package org.dataledge.gateway.filter;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.ResilienceProperties;
+import org.dataledge.gateway.config.exceptions.UpstreamServerErrorException;
+import org.dataledge.gateway.filter.cache.CachedResponse;
+import org.dataledge.gateway.filter.cache.ReplayableHeaders;
+import org.dataledge.gateway.filter.cache.RequestKey;
+import org.dataledge.gateway.filter.cache.ResponseCacheStore;
+import org.dataledge.gateway.filter.cache.ResponseCapture;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Guards a route with a resilience4j bulkhead and circuit breaker, both looked up by name in the
+ * {@code resilience4j.*} configuration so routes to the same service can share them.
+ * Exceptions, including the response timeouts set in route metadata, and 5xx answers count as failures.
+ * When a GET is rejected or fails before its response started, the last good answer to the same request
+ * of the same user is served if one is known, else the client gets 503 with Retry-After.
+ * List it last, after the cache filters, so cache hits never take a permit.
+ * <pre>
+ * metadata:
+ *   response-timeout: 10000
+ * filters:
+ *   - AuthenticationFilter
+ *   - name: RouteResilienceFilter
+ *     args:
+ *       circuit-breaker: datasourceService
+ *       bulkhead: datasourceService
+ * </pre>
+ */
+@Component
+@Slf4j
+public class RouteResilienceFilter extends AbstractGatewayFilterFactory<RouteResilienceFilter.Config> {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final ResponseCacheStore lastGood;
+    private final int maxEntryBytes;
+    private final Duration maxAge;
+    private final MeterRegistry meterRegistry;
+
+    public RouteResilienceFilter(CircuitBreakerRegistry circuitBreakerRegistry,
+                                 BulkheadRegistry bulkheadRegistry,
+                                 ResilienceProperties properties,
+                                 MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.lastGood = new ResponseCacheStore("gateway.resilience.last.good",
+                properties.getMaxSize().toBytes(), Clock.systemUTC(), meterRegistry);
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxEntrySize().toBytes());
+        this.maxAge = properties.getMaxAge();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(
+                config.getCircuitBreaker() != null ? config.getCircuitBreaker() : routeId);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(config.getBulkhead() != null ? config.getBulkhead() : routeId);
+        Counter servedFallbacks = fallbackCounter(routeId, "last-good");
+        Counter unavailable = fallbackCounter(routeId, "unavailable");
+
+        return RouteFilterOrder.ordered((exchange, chain) -> {
+            RequestKey key = null;
+            if (HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+                String userId = exchange.getRequest().getHeaders().getFirst(DataLedgeUtil.USER_ID_HEADER);
+                key = RequestKey.of(routeId, userId != null ? userId : "", exchange.getRequest());
+            }
+            RequestKey lastGoodKey = key;
+
+            if (!bulkhead.tryAcquirePermission()) {
+                return fallback(exchange, lastGoodKey, servedFallbacks, unavailable, Duration.ofSeconds(1));
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                bulkhead.onComplete();
+                return fallback(exchange, lastGoodKey, servedFallbacks, unavailable, openDuration(circuitBreaker));
+            }
+
+            long start = circuitBreaker.getCurrentTimestamp();
+            ServerWebExchange forwarded = lastGoodKey == null ? exchange : exchange.mutate()
+                    .response(new ResponseCapture(exchange.getResponse(), maxEntryBytes,
+                            captured -> remember(lastGoodKey, captured)))
+                    .build();
+
+            return chain.filter(forwarded)
+                    .doOnSuccess(done -> {
+                        long elapsed = circuitBreaker.getCurrentTimestamp() - start;
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        if (status != null && status.is5xxServerError()) {
+                            circuitBreaker.onError(elapsed, circuitBreaker.getTimestampUnit(),
+                                    new UpstreamServerErrorException(status));
+                        } else {
+                            circuitBreaker.onSuccess(elapsed, circuitBreaker.getTimestampUnit());
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        if (e instanceof ResponseStatusException statusException
+                                && statusException.getStatusCode().is4xxClientError()) {
+                            // Refused by a filter on the way, e.g. an upload over its size limit, not an upstream failure
+                            circuitBreaker.releasePermission();
+                            return Mono.error(e);
+                        }
+                        circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start,
+                                circuitBreaker.getTimestampUnit(), e);
+                        if (exchange.getResponse().isCommitted()) {
+                            return Mono.error(e);
+                        }
+                        log.warn("Route {} failed: {}", routeId, e.getMessage());
+                        return serveLastGood(exchange, lastGoodKey, servedFallbacks, Mono.error(e));
+                    })
+                    .doOnCancel(circuitBreaker::releasePermission)
+                    .doFinally(signal -> bulkhead.onComplete());
+        });
+    }
+
+    private void remember(RequestKey key, ResponseCapture.Captured captured) {
+        ServerHttpResponse response = captured.response();
+        if (captured.body() == null || !HttpStatus.OK.equals(response.getStatusCode())
+                || response.getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+            return;
+        }
+
+        Instant now = lastGood.now();
+        lastGood.put(key, new CachedResponse(
+                response.getStatusCode(),
+                ReplayableHeaders.copyOf(response.getHeaders()),
+                captured.body(),
+                response.getHeaders().getETag(),
+                response.getHeaders().getETag(),
+                now,
+                now,
+                now.plus(maxAge)));
+    }
+
+    private Mono<Void> fallback(ServerWebExchange exchange, RequestKey key, Counter served, Counter unavailable,
+                                Duration retryAfter) {
+        return serveLastGood(exchange, key, served, Mono.defer(() -> {
+            unavailable.increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+            return response.setComplete();
+        }));
+    }
+
+    private Mono<Void> serveLastGood(ServerWebExchange exchange, RequestKey key, Counter served,
+                                     Mono<Void> otherwise) {
+        CachedResponse cached = key != null ? lastGood.get(key) : null;
+        if (cached == null) {
+            return otherwise;
+        }
+
+        served.increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(cached.status());
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(HttpHeaders.AGE,
+                Long.toString(Math.max(0, Duration.between(cached.storedAt(), lastGood.now()).toSeconds())));
+        response.getHeaders().set(ReplayableHeaders.CACHE_STATUS_HEADER, "FALLBACK");
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static Duration openDuration(CircuitBreaker circuitBreaker) {
+        // Retry-After has whole seconds only, round up
+        long millis = circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1);
+        return Duration.ofSeconds((millis + 999) / 1000);
+    }
+
+    private Counter fallbackCounter(String routeId, String outcome) {
+        return Counter.builder("gateway.resilience.fallbacks")
+                .description("Requests not forwarded or failed, by what the client got instead")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        /**
+         * resilience4j circuit breaker instance, the route id when not set.
+         */
+        private String circuitBreaker;
+
+        /**
+         * resilience4j bulkhead instance, the route id when not set.
+         */
+        private String bulkhead;
+        private String routeId;
+    }
+}
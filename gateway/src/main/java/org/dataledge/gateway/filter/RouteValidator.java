@@ -1,21 +1,32 @@
 package org.dataledge.gateway.filter;
 
+import org.dataledge.gateway.config.OpenEndpointsProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
 // Use the reactive ServerHttpRequest
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.function.Predicate;
 
+/**
+ * Decides which requests need an access token.
+ * Open endpoints come from {@code gateway.security.open-endpoints} and are compiled into a trie at startup.
+ */
 @Component
 public class RouteValidator {
-    public static final List<String> openApiEndpoints = List.of(
-            "/auth/register",
-            "/auth/authenticate",
-            "/eureka"
-    );
+
+    private final PathMethodTrie openEndpoints = new PathMethodTrie();
+
+    public RouteValidator(OpenEndpointsProperties properties) {
+        properties.getOpenEndpoints().forEach(endpoint ->
+                openEndpoints.add(endpoint.getPattern(), endpoint.getMethods()));
+    }
 
     public Predicate<ServerHttpRequest> isSecured =
-            request -> openApiEndpoints.stream()
-                    .noneMatch(uri -> request.getURI().getPath().equals(uri));
-}
\ No newline at end of file
+            request -> !isOpen(request.getPath().pathWithinApplication(), request.getMethod());
+
+    public boolean isOpen(PathContainer path, HttpMethod method) {
+        return openEndpoints.matches(path, method);
+    }
+}
@@ -0,0 +1,142 @@
+package org.dataledge.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams request bodies of upload routes to upstream as they arrive, never holding more than the buffers
+ * in transit: every buffer is passed on one by one at the pace the upstream connection takes them.
+ * <ul>
+ *     <li>A Content-Length over {@code max-size} is answered with 413 before reading the body;
+ *     chunked bodies are counted while streaming and cut off with 413 once over the limit.</li>
+ *     <li>Refuses to run where an earlier filter already cached the body.</li>
+ *     <li>Bytes are counted in {@code gateway.upload.bytes}: {@code in} from the client,
+ *     {@code upstream} handed to the upstream connection, {@code out} answered to the client.</li>
+ * </ul>
+ * A streamed body cannot be sent twice, keep filters that retry or hedge off the route.
+ * <pre>
+ * filters:
+ *   - AuthenticationFilter
+ *   - name: StreamingUploadFilter
+ *     args:
+ *       max-size: 2GB
+ * </pre>
+ */
+@Component
+public class StreamingUploadFilter extends AbstractGatewayFilterFactory<StreamingUploadFilter.Config> {
+
+    private final MeterRegistry meterRegistry;
+
+    public StreamingUploadFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        long maxBytes = config.getMaxSize().toBytes();
+        Counter bytesIn = bytesCounter(routeId, "in");
+        Counter bytesUpstream = bytesCounter(routeId, "upstream");
+        Counter bytesOut = bytesCounter(routeId, "out");
+        Counter rejectedByLength = rejectedCounter(routeId, "content-length");
+        Counter rejectedWhileStreaming = rejectedCounter(routeId, "streamed-over-limit");
+
+        return RouteFilterOrder.ordered((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR) != null) {
+                return Mono.error(new IllegalStateException(
+                        "Request body of streaming route " + routeId + " was cached by an earlier filter"));
+            }
+
+            long contentLength = request.getHeaders().getContentLength();
+            if (contentLength > maxBytes) {
+                rejectedByLength.increment();
+                return tooLarge(exchange);
+            }
+
+            AtomicLong received = new AtomicLong();
+            ServerHttpRequest streaming = new ServerHttpRequestDecorator(request) {
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    return super.getBody()
+                            .handle((buffer, sink) -> {
+                                int size = buffer.readableByteCount();
+                                bytesIn.increment(size);
+                                if (received.addAndGet(size) > maxBytes) {
+                                    DataBufferUtils.release(buffer);
+                                    rejectedWhileStreaming.increment();
+                                    sink.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                            "Upload exceeds " + maxBytes + " bytes"));
+                                    return;
+                                }
+                                bytesUpstream.increment(size);
+                                sink.next(buffer);
+                            });
+                }
+            };
+            ServerHttpResponse counting = new ServerHttpResponseDecorator(exchange.getResponse()) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    return super.writeWith(Flux.from(body).doOnNext(buffer -> bytesOut.increment(buffer.readableByteCount())));
+                }
+            };
+
+            return chain.filter(exchange.mutate().request(streaming).response(counting).build());
+        });
+    }
+
+    private static Mono<Void> tooLarge(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+        // The unread body would otherwise keep the connection busy
+        response.getHeaders().setConnection("close");
+        return response.setComplete();
+    }
+
+    private Counter bytesCounter(String routeId, String direction) {
+        return Counter.builder("gateway.upload.bytes")
+                .description("Bytes through streaming upload routes")
+                .baseUnit("bytes")
+                .tag("route", routeId)
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(String routeId, String reason) {
+        return Counter.builder("gateway.upload.rejected")
+                .description("Uploads refused for being over the route's size limit")
+                .tag("route", routeId)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private DataSize maxSize = DataSize.ofGigabytes(2);
+        private String routeId;
+    }
+}
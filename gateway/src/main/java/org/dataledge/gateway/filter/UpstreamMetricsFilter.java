@@ -0,0 +1,100 @@
+package org.dataledge.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histogram per route and upstream instance, {@code gateway.upstream.latency}.
+ * Runs right after the load balancer picked the instance, so it measures the upstream call alone, until the
+ * response headers arrived; hedged attempts are measured one by one.
+ * <p>
+ * Instances come and go with every deployment, so a series unused for {@link #IDLE_EXPIRY} is removed from the
+ * registry rather than kept, with its histogram buckets, for the life of the gateway.
+ */
+@Component
+public class UpstreamMetricsFilter implements GlobalFilter, Ordered {
+
+    private record Key(String routeId, String instance, RouteMetricsFilter.Outcome outcome) {
+    }
+
+    public static final Duration IDLE_EXPIRY = Duration.ofMinutes(10);
+
+    private final MeterRegistry meterRegistry;
+    private final Cache<Key, Timer> timers;
+
+    @Autowired
+    public UpstreamMetricsFilter(MeterRegistry meterRegistry) {
+        this(meterRegistry, Ticker.systemTicker());
+    }
+
+    public UpstreamMetricsFilter(MeterRegistry meterRegistry, Ticker ticker) {
+        this.meterRegistry = meterRegistry;
+        this.timers = Caffeine.newBuilder()
+                .expireAfterAccess(IDLE_EXPIRY)
+                .ticker(ticker)
+                // Expires series of instances gone for good as well, without further requests to trigger it
+                .scheduler(Scheduler.systemScheduler())
+                .executor(Runnable::run)
+                .evictionListener((Key key, Timer timer, RemovalCause cause) -> {
+                    if (timer != null) {
+                        meterRegistry.remove(timer);
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI upstream = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (upstream == null || route == null || upstream.getHost() == null) {
+            return chain.filter(exchange);
+        }
+
+        String instance = upstream.getHost() + ':' + upstream.getPort();
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    RouteMetricsFilter.Outcome outcome = RouteMetricsFilter.outcome(signal,
+                            exchange.getResponse().getStatusCode());
+                    timer(route.getId(), instance, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                });
+    }
+
+    private Timer timer(String routeId, String instance, RouteMetricsFilter.Outcome outcome) {
+        return timers.get(new Key(routeId, instance, outcome), key -> Timer.builder("gateway.upstream.latency")
+                .description("Time from forwarding a request to an upstream instance until its response headers arrived")
+                .tag("route", key.routeId())
+                .tag("instance", key.instance())
+                .tag("outcome", key.outcome().tag())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry));
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
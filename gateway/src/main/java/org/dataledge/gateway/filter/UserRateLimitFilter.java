@@ -0,0 +1,126 @@
+package org.dataledge.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.ratelimit.RateLimitDecision;
+import org.dataledge.gateway.ratelimit.RateLimitPolicy;
+import org.dataledge.gateway.ratelimit.RateLimiterBackend;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Token bucket per user and route. Must be listed after {@code AuthenticationFilter} so the user id header is set,
+ * open endpoints are limited per client address instead. Rejected requests get 429 with {@code Retry-After}.
+ * <pre>
+ * filters:
+ *   - AuthenticationFilter
+ *   - name: UserRateLimitFilter
+ *     args:
+ *       capacity: 20
+ *       refill-per-second: 5
+ * </pre>
+ */
+@Component
+@Slf4j
+public class UserRateLimitFilter extends AbstractGatewayFilterFactory<UserRateLimitFilter.Config> {
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final RateLimitDecision FAILED_OPEN = new RateLimitDecision(true, -1, Duration.ZERO);
+
+    private final RateLimiterBackend backend;
+    private final RouteValidator validator;
+    private final MeterRegistry meterRegistry;
+
+    public UserRateLimitFilter(RateLimiterBackend backend, RouteValidator validator, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.backend = backend;
+        this.validator = validator;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        RateLimitPolicy policy = new RateLimitPolicy(config.getCapacity(), config.getRefillPerSecond(), config.getCost());
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        Counter allowed = counter(routeId, "allowed");
+        Counter rejected = counter(routeId, "rejected");
+        Counter failedOpen = counter(routeId, "error");
+
+        return RouteFilterOrder.ordered((exchange, chain) -> {
+            String key = routeId + ':' + clientKey(exchange.getRequest());
+
+            return backend.tryAcquire(key, policy)
+                    .onErrorResume(e -> {
+                        // A broken limiter must not take the API down with it
+                        log.warn("Rate limiter unavailable, letting request through: {}", e.getMessage());
+                        failedOpen.increment();
+                        return Mono.just(FAILED_OPEN);
+                    })
+                    .flatMap(decision -> {
+                        if (decision == FAILED_OPEN) {
+                            return chain.filter(exchange);
+                        }
+
+                        ServerHttpResponse response = exchange.getResponse();
+                        response.getHeaders().set(REMAINING_HEADER, Long.toString(decision.remaining()));
+                        if (decision.allowed()) {
+                            allowed.increment();
+                            return chain.filter(exchange);
+                        }
+
+                        rejected.increment();
+                        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(decision)));
+                        return response.setComplete();
+                    });
+        });
+    }
+
+    private String clientKey(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst(DataLedgeUtil.USER_ID_HEADER);
+        // On open endpoints the header comes from the client, not from a verified token
+        if (userId != null && !validator.isOpen(request.getPath().pathWithinApplication(), request.getMethod())) {
+            return "user:" + userId;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return "ip:" + (remoteAddress != null ? remoteAddress.getHostString() : "unknown");
+    }
+
+    private static long retryAfterSeconds(RateLimitDecision decision) {
+        // Retry-After only has whole seconds, rounding down would invite an early retry
+        long millis = decision.retryAfter().toMillis();
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .description("Requests checked by the rate limiter")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private int capacity = 20;
+        private double refillPerSecond = 10;
+        private int cost = 1;
+        private String routeId;
+    }
+}
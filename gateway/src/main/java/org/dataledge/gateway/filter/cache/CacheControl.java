@@ -0,0 +1,52 @@
+package org.dataledge.gateway.filter.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The Cache-Control directives the gateway cache acts on, unknown ones are ignored.
+ * Durations are null when the directive is absent.
+ */
+public record CacheControl(boolean noStore, boolean noCache, Duration maxAge, Duration staleWhileRevalidate) {
+
+    public static final CacheControl EMPTY = new CacheControl(false, false, null, null);
+
+    public static CacheControl parse(List<String> headerValues) {
+        if (headerValues == null || headerValues.isEmpty()) {
+            return EMPTY;
+        }
+
+        boolean noStore = false;
+        boolean noCache = false;
+        Duration maxAge = null;
+        Duration sharedMaxAge = null;
+        Duration staleWhileRevalidate = null;
+        for (String value : headerValues) {
+            for (String directive : value.split(",")) {
+                String[] parts = directive.trim().split("=", 2);
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                Duration seconds = parts.length == 2 ? seconds(parts[1]) : null;
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "max-age" -> maxAge = seconds;
+                    // s-maxage is meant for shared caches like this one and wins over max-age
+                    case "s-maxage" -> sharedMaxAge = seconds;
+                    case "stale-while-revalidate" -> staleWhileRevalidate = seconds;
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new CacheControl(noStore, noCache, sharedMaxAge != null ? sharedMaxAge : maxAge, staleWhileRevalidate);
+    }
+
+    private static Duration seconds(String value) {
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim().replace("\"", ""))));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.dataledge.gateway.filter.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Instant;
+
+/**
+ * A stored response, immutable so hits can be served without copying.
+ * @param etag the validator clients see, the upstream ETag or one computed from the body
+ * @param upstreamEtag the upstream ETag used to revalidate, null if upstream sent none
+ * @param freshUntil served without asking upstream until then
+ * @param staleUntil served while a background revalidation runs until then
+ */
+public record CachedResponse(HttpStatusCode status,
+                             HttpHeaders headers,
+                             byte[] body,
+                             String etag,
+                             String upstreamEtag,
+                             Instant storedAt,
+                             Instant freshUntil,
+                             Instant staleUntil) {
+
+    // Rough per-entry overhead of the record, headers and cache node
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    public boolean isFresh(Instant now) {
+        return now.isBefore(freshUntil);
+    }
+
+    public boolean isUsable(Instant now) {
+        return now.isBefore(staleUntil);
+    }
+
+    public CachedResponse revalidated(Instant now, Instant freshUntil, Instant staleUntil) {
+        return new CachedResponse(status, headers, body, etag, upstreamEtag, now, freshUntil, staleUntil);
+    }
+
+    int weight() {
+        int headerBytes = 0;
+        for (var header : headers.headerSet()) {
+            headerBytes += header.getKey().length();
+            for (String value : header.getValue()) {
+                headerBytes += value.length();
+            }
+        }
+        return body.length + headerBytes + ENTRY_OVERHEAD_BYTES;
+    }
+}
@@ -0,0 +1,47 @@
+package org.dataledge.gateway.filter.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Response that belongs to no client connection, for upstream calls the gateway makes on its own behalf.
+ * The body is discarded, wrap it in a {@link ResponseCapture} to keep it.
+ */
+public class DetachedServerHttpResponse extends AbstractServerHttpResponse {
+
+    public DetachedServerHttpResponse() {
+        super(DefaultDataBufferFactory.sharedInstance);
+    }
+
+    @Override
+    public <T> T getNativeResponse() {
+        throw new IllegalStateException("Detached response has no native response");
+    }
+
+    @Override
+    protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+        return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+    }
+
+    @Override
+    protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return Flux.from(body).concatMap(Flux::from).doOnNext(DataBufferUtils::release).then();
+    }
+
+    @Override
+    protected void applyStatusCode() {
+    }
+
+    @Override
+    protected void applyHeaders() {
+    }
+
+    @Override
+    protected void applyCookies() {
+    }
+}
@@ -0,0 +1,35 @@
+package org.dataledge.gateway.filter.cache;
+
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copy of an exchange for an extra upstream attempt. The gateway keeps routing state such as the resolved
+ * request URL and the already-routed flag in exchange attributes, which {@code exchange.mutate()} would share,
+ * so each attempt gets its own copy of the attributes and its own response.
+ */
+public class IsolatedExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final ServerHttpResponse response;
+
+    public IsolatedExchange(ServerWebExchange delegate, ServerHttpResponse response) {
+        super(delegate);
+        this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+        this.response = response;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+}
@@ -0,0 +1,32 @@
+package org.dataledge.gateway.filter.cache;
+
+import org.dataledge.gateway.filter.UserRateLimitFilter;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+
+/**
+ * Response headers that may be sent again with a stored body to another request.
+ */
+public final class ReplayableHeaders {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    // Per connection, or set per request by the gateway
+    private static final List<String> EXCLUDED = List.of(
+            HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.TRANSFER_ENCODING, HttpHeaders.AGE,
+            CACHE_STATUS_HEADER, UserRateLimitFilter.REMAINING_HEADER);
+
+    private ReplayableHeaders() {
+    }
+
+    public static HttpHeaders copyOf(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (EXCLUDED.stream().noneMatch(name::equalsIgnoreCase)) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+}
@@ -0,0 +1,17 @@
+package org.dataledge.gateway.filter.cache;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Identifies requests that get the same answer.
+ * @param userId null for requests whose answer is the same for all users of a route
+ * @param pathAndQuery raw path and query of the request
+ */
+public record RequestKey(String routeId, String userId, String pathAndQuery) {
+
+    public static RequestKey of(String routeId, String userId, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getRawPath();
+        return new RequestKey(routeId, userId, query == null ? path : path + '?' + query);
+    }
+}
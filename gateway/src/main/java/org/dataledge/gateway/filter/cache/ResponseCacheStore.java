@@ -0,0 +1,73 @@
+package org.dataledge.gateway.filter.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached responses of all routes under one memory budget, weighed by body and header size.
+ * Also remembers which keys are being revalidated so a stale entry triggers one upstream call, not one per hit.
+ */
+public class ResponseCacheStore {
+
+    private final Cache<RequestKey, CachedResponse> entries;
+    private final Set<RequestKey> revalidating = ConcurrentHashMap.newKeySet();
+    private final Clock clock;
+
+    public ResponseCacheStore(String name, long maxBytes, Clock clock, MeterRegistry meterRegistry) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((RequestKey key, CachedResponse response) -> response.weight())
+                .recordStats()
+                .build();
+        this.clock = clock;
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, name);
+    }
+
+    public Instant now() {
+        return clock.instant();
+    }
+
+    public CachedResponse get(RequestKey key) {
+        CachedResponse response = entries.getIfPresent(key);
+        if (response != null && !response.isUsable(now())) {
+            entries.asMap().remove(key, response);
+            return null;
+        }
+        return response;
+    }
+
+    public void put(RequestKey key, CachedResponse response) {
+        entries.put(key, response);
+    }
+
+    /**
+     * @return false when a revalidation of the key is already running
+     */
+    public boolean startRevalidation(RequestKey key) {
+        return revalidating.add(key);
+    }
+
+    public void endRevalidation(RequestKey key) {
+        revalidating.remove(key);
+    }
+
+    /**
+     * Drops a user's entries of a route after the user changed something through it.
+     * Shared entries of the route go as well, they may include what the user changed.
+     */
+    public void invalidate(String routeId, String userId) {
+        entries.asMap().keySet().removeIf(key -> key.routeId().equals(routeId)
+                && (key.userId() == null || key.userId().equals(userId)));
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+}
@@ -0,0 +1,82 @@
+package org.dataledge.gateway.filter.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Passes the response through unchanged and keeps a copy of the body, up to a size limit.
+ * Once the body is written, {@code onComplete} gets the copy, or null when the body was over the limit.
+ */
+public class ResponseCapture extends ServerHttpResponseDecorator {
+
+    private final int maxBodyBytes;
+    private final Consumer<Captured> onComplete;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private boolean overflow;
+    private boolean completed;
+
+    /**
+     * What upstream answered, the headers are the live response headers and must be copied to be kept.
+     */
+    public record Captured(ServerHttpResponse response, byte[] body) {
+    }
+
+    public ResponseCapture(ServerHttpResponse delegate, int maxBodyBytes, Consumer<Captured> onComplete) {
+        super(delegate);
+        this.maxBodyBytes = maxBodyBytes;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        Flux<? extends DataBuffer> copying = Flux.from(body).doOnNext(this::copy);
+        return super.writeWith(copying).doOnSuccess(done -> complete());
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).concatMap(Flux::from));
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        // Responses without a body, e.g. 304 from upstream
+        return super.setComplete().doOnSuccess(done -> complete());
+    }
+
+    private void copy(DataBuffer buffer) {
+        if (overflow) {
+            return;
+        }
+        if (body.size() + buffer.readableByteCount() > maxBodyBytes) {
+            overflow = true;
+            body.reset();
+            return;
+        }
+        // Read through views so the buffer's own read position stays where the writer expects it
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer view = iterator.next();
+                byte[] chunk = new byte[view.remaining()];
+                view.get(chunk);
+                body.writeBytes(chunk);
+            }
+        }
+    }
+
+    private void complete() {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        onComplete.accept(new Captured(getDelegate(), overflow ? null : body.toByteArray()));
+    }
+}
@@ -0,0 +1,124 @@
+package org.dataledge.gateway.filter.hedge;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Response of one hedged attempt. A body up to {@code maxBodyBytes} is kept and handed to {@code onAnswer} once
+ * written. A larger one is handed over as soon as it crosses the limit, as a stream of the kept prefix and the rest,
+ * and the attempt's write then lasts until that stream has been written elsewhere or discarded.
+ */
+public class AttemptResponse extends ServerHttpResponseDecorator {
+
+    private final int maxBodyBytes;
+    private final Consumer<Answer> onAnswer;
+    private final ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+    private boolean answered;
+
+    /**
+     * What upstream answered, the headers are the live response headers. Either {@code body} holds the whole body,
+     * or {@code stream} must be written once or the answer discarded, else the upstream call never ends.
+     */
+    public record Answer(ServerHttpResponse response, byte[] body, Flux<DataBuffer> stream,
+                         Sinks.Empty<Void> released) {
+
+        public boolean streamed() {
+            return stream != null;
+        }
+
+        public void discard() {
+            if (released != null) {
+                released.tryEmitError(new CancellationException("Answer not used"));
+            }
+        }
+    }
+
+    public AttemptResponse(ServerHttpResponse delegate, int maxBodyBytes, Consumer<Answer> onAnswer) {
+        super(delegate);
+        this.maxBodyBytes = maxBodyBytes;
+        this.onAnswer = onAnswer;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        AtomicLong size = new AtomicLong();
+        AtomicBoolean over = new AtomicBoolean();
+        AtomicInteger windows = new AtomicInteger();
+        return Flux.<DataBuffer>from(body)
+                // The first window is what fits the limit, possibly nothing, the second starts where it is crossed
+                .windowUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodyBytes
+                        && !over.getAndSet(true), true)
+                .concatMap(window -> windows.getAndIncrement() == 0
+                        ? window.doOnNext(this::keep).then()
+                        : handOver(window))
+                .then(Mono.<Void>fromRunnable(() ->
+                        answer(new Answer(getDelegate(), prefix.toByteArray(), null, null))))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).concatMap(Flux::from));
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        // Responses without a body, e.g. 304 from upstream
+        return super.setComplete().doOnSuccess(done -> answer(new Answer(getDelegate(), new byte[0], null, null)));
+    }
+
+    private void keep(DataBuffer buffer) {
+        // The buffers end here, nothing downstream releases them
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer view = iterator.next();
+                byte[] chunk = new byte[view.remaining()];
+                view.get(chunk);
+                prefix.writeBytes(chunk);
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private Mono<Void> handOver(Flux<DataBuffer> rest) {
+        byte[] kept = prefix.toByteArray();
+        prefix.reset();
+        Sinks.Empty<Void> released = Sinks.empty();
+        Flux<DataBuffer> stream = Flux.concat(
+                        kept.length > 0 ? Mono.fromSupplier(() -> bufferFactory().wrap(kept)) : Mono.empty(), rest)
+                // A client that stops reading ends the upstream call as well
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        released.tryEmitError(new CancellationException("Client stopped reading"));
+                    } else {
+                        released.tryEmitEmpty();
+                    }
+                });
+        answer(new Answer(getDelegate(), null, stream, released));
+        return released.asMono();
+    }
+
+    private void answer(Answer answer) {
+        if (answered) {
+            return;
+        }
+        answered = true;
+        onAnswer.accept(answer);
+    }
+}
@@ -0,0 +1,67 @@
+package org.dataledge.gateway.filter.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that caps extra upstream attempts, hedges and retries alike, to a share of the real traffic.
+ * Every request deposits {@code ratio} of a token, every extra attempt withdraws a whole one, and
+ * {@code minPerSecond} tokens trickle in regardless so quiet routes can still hedge.
+ * When upstream is struggling the budget runs dry and load stays at most {@code 1 + ratio} times the traffic.
+ */
+public class RetryBudget {
+
+    // Tokens are counted in thousandths so fractional deposits need no floating point state
+    private static final long SCALE = 1_000;
+
+    private final long capacity;
+    private final long deposit;
+    private final double refillPerNano;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefill;
+    private final LongSupplier nanoClock;
+
+    public RetryBudget(double ratio, double minPerSecond, int maxTokens, LongSupplier nanoClock) {
+        this.capacity = Math.max(1, maxTokens) * SCALE;
+        this.deposit = Math.round(ratio * SCALE);
+        this.refillPerNano = minPerSecond * SCALE / 1_000_000_000d;
+        this.balance = new AtomicLong(capacity);
+        this.lastRefill = new AtomicLong(nanoClock.getAsLong());
+        this.nanoClock = nanoClock;
+    }
+
+    public void deposit() {
+        add(deposit);
+    }
+
+    public boolean tryWithdraw() {
+        refill();
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    public double tokens() {
+        return (double) balance.get() / SCALE;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        long last = lastRefill.get();
+        long earned = (long) ((now - last) * refillPerNano);
+        // Only the thread that moves the timestamp credits the interval
+        if (earned > 0 && lastRefill.compareAndSet(last, now)) {
+            add(earned);
+        }
+    }
+
+    private void add(long amount) {
+        balance.accumulateAndGet(amount, (current, added) -> Math.min(capacity, current + added));
+    }
+}
@@ -0,0 +1,48 @@
+package org.dataledge.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts requests in flight per instance for the {@link InstanceLoadTracker}. The load balancer filter only
+ * completes its lifecycle on success and error, a cancelled call, the losing attempt of a hedge or a client that
+ * went away, would stay counted forever. Runs right after the instance was picked and releases it on any end.
+ */
+@Component
+public class InstanceLoadFilter implements GlobalFilter, Ordered {
+
+    private final InstanceLoadTracker tracker;
+
+    public InstanceLoadFilter(InstanceLoadTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse =
+                exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        ServiceInstance instance = lbResponse.getServer();
+        long start = tracker.requestStarted(instance);
+        // Released before the end is passed on, a caller that completes next already sees the count
+        return chain.filter(exchange)
+                .doOnTerminate(() -> tracker.requestEnded(instance, start, false))
+                .doOnCancel(() -> tracker.requestEnded(instance, start, true));
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
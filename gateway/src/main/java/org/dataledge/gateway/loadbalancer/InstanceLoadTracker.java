@@ -0,0 +1,174 @@
+package org.dataledge.gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataledge.gateway.config.LoadBalancingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Requests in flight and a latency EWMA per instance, fed by the load balancer lifecycle of every {@code lb://} call.
+ * Lifecycle beans of the main context apply to all load balancer clients.
+ * The lifecycle never hears of cancelled calls, so requests in flight are counted by {@link InstanceLoadFilter}.
+ */
+@Component
+public class InstanceLoadTracker implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final Cache<String, InstanceStats> stats;
+    private final MeterRegistry meterRegistry;
+    private final long decayNanos;
+    private final long failurePenaltyNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public InstanceLoadTracker(LoadBalancingProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    public InstanceLoadTracker(LoadBalancingProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = properties.getEwmaDecay().toNanos();
+        this.failurePenaltyNanos = properties.getFailurePenalty().toNanos();
+        this.nanoClock = nanoClock;
+        this.stats = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getStatsExpiry())
+                .removalListener((String key, InstanceStats value, RemovalCause cause) -> {
+                    if (value != null) {
+                        value.meters.forEach(meterRegistry::remove);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Load of one instance, the EWMA is read and updated without locks, concurrent samples may overwrite each other.
+     */
+    public static final class InstanceStats {
+        private final AtomicInteger outstanding = new AtomicInteger();
+        // Nanoseconds, negative until the first sample
+        private volatile double ewmaNanos = -1;
+        private volatile long lastSampleNanos;
+        private List<Gauge> meters = List.of();
+
+        public int outstanding() {
+            return outstanding.get();
+        }
+
+        public double ewmaNanos() {
+            return ewmaNanos;
+        }
+
+        public boolean hasSamples() {
+            return ewmaNanos >= 0;
+        }
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        return stats.get(key(instance), k -> register(instance, new InstanceStats()));
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(nanoClock.getAsLong());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD
+                || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+
+        InstanceStats instance = stats(lbResponse.getServer());
+        long now = nanoClock.getAsLong();
+        long latency = 0;
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        if (context instanceof TimedRequestContext timed && timed.getRequestStartTime() > 0) {
+            latency = now - timed.getRequestStartTime();
+        }
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            latency = Math.max(latency, failurePenaltyNanos);
+        }
+        record(instance, latency, now);
+    }
+
+    /**
+     * A request was sent to the instance, returns its start time for {@link #requestEnded}.
+     */
+    public long requestStarted(ServiceInstance instance) {
+        stats(instance).outstanding.incrementAndGet();
+        return nanoClock.getAsLong();
+    }
+
+    /**
+     * A request to the instance ended in any way. A cancelled one, typically a hedge's slower attempt, counts
+     * the time it ran as latency, the instance took at least that long.
+     */
+    public void requestEnded(ServiceInstance instance, long startNanos, boolean cancelled) {
+        InstanceStats stats = stats(instance);
+        stats.outstanding.decrementAndGet();
+        if (cancelled) {
+            long now = nanoClock.getAsLong();
+            record(stats, now - startNanos, now);
+        }
+    }
+
+    void record(InstanceStats instance, long latencyNanos, long now) {
+        if (!instance.hasSamples()) {
+            instance.ewmaNanos = latencyNanos;
+        } else {
+            // Time based decay, a quiet instance's old average fades instead of sticking forever
+            double weight = Math.exp(-(double) (now - instance.lastSampleNanos) / decayNanos);
+            instance.ewmaNanos = instance.ewmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        instance.lastSampleNanos = now;
+    }
+
+    private InstanceStats register(ServiceInstance instance, InstanceStats stats) {
+        String service = instance.getServiceId() != null ? instance.getServiceId() : "unknown";
+        String id = key(instance);
+        stats.meters = List.of(
+                Gauge.builder("gateway.lb.outstanding", stats, InstanceStats::outstanding)
+                        .description("Requests in flight per instance")
+                        .tag("service", service)
+                        .tag("instance", id)
+                        .register(meterRegistry),
+                Gauge.builder("gateway.lb.latency.ewma", stats, s -> Math.max(0, s.ewmaNanos()) / 1_000_000d)
+                        .description("Latency average per instance in milliseconds")
+                        .tag("service", service)
+                        .tag("instance", id)
+                        .register(meterRegistry));
+        return stats;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getServiceId() + '@' + instance.getHost() + ':' + instance.getPort();
+    }
+}
@@ -0,0 +1,141 @@
+package org.dataledge.gateway.loadbalancer;
+
+import org.dataledge.gateway.config.LoadBalancingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the instance expected to answer soonest, see {@link LoadBalancingProperties.Strategy}.
+ * Instances flagged as warming up in their Eureka metadata are skipped while any other instance is available.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceLoadTracker tracker;
+    private final LoadBalancingProperties.Strategy strategy;
+    private final String warmupMetadataKey;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    InstanceLoadTracker tracker,
+                                    LoadBalancingProperties properties) {
+        this.supplierProvider = supplierProvider;
+        this.tracker = tracker;
+        this.strategy = properties.getStrategy();
+        this.warmupMetadataKey = properties.getWarmupMetadataKey();
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    public Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        List<ServiceInstance> candidates = warm(instances);
+        if (candidates.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        return new DefaultResponse(switch (strategy) {
+            case LEAST_OUTSTANDING -> leastOutstanding(candidates);
+            case EWMA -> lowestCost(candidates, prior(candidates));
+            case P2C_EWMA -> powerOfTwoChoices(candidates, prior(candidates));
+        });
+    }
+
+    private List<ServiceInstance> warm(List<ServiceInstance> instances) {
+        List<ServiceInstance> warm = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!Boolean.parseBoolean(instance.getMetadata().get(warmupMetadataKey))) {
+                warm.add(instance);
+            }
+        }
+        // A cold pod still beats no pod
+        return warm.isEmpty() ? instances : warm;
+    }
+
+    private ServiceInstance leastOutstanding(List<ServiceInstance> candidates) {
+        ServiceInstance best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        int ties = 0;
+        for (ServiceInstance instance : candidates) {
+            int outstanding = tracker.stats(instance).outstanding();
+            if (outstanding < bestOutstanding) {
+                best = instance;
+                bestOutstanding = outstanding;
+                ties = 1;
+            } else if (outstanding == bestOutstanding && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                // Reservoir sampling over equal instances, so idle pods share the traffic
+                best = instance;
+            }
+        }
+        return best;
+    }
+
+    private ServiceInstance lowestCost(List<ServiceInstance> candidates, double prior) {
+        ServiceInstance best = candidates.get(0);
+        double bestCost = cost(best, prior);
+        for (int i = 1; i < candidates.size(); i++) {
+            double cost = cost(candidates.get(i), prior);
+            if (cost < bestCost) {
+                best = candidates.get(i);
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    private ServiceInstance powerOfTwoChoices(List<ServiceInstance> candidates, double prior) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return cost(a, prior) <= cost(b, prior) ? a : b;
+    }
+
+    /**
+     * Expected wait: latency average scaled by the requests already queued on the instance.
+     */
+    private double cost(ServiceInstance instance, double prior) {
+        InstanceLoadTracker.InstanceStats stats = tracker.stats(instance);
+        double latency = stats.hasSamples() ? stats.ewmaNanos() : prior;
+        // +1 so idle instances still differ by latency, the floor so a 0ns average still counts load
+        return Math.max(latency, 1) * (stats.outstanding() + 1);
+    }
+
+    /**
+     * Latency assumed for instances without samples: the average of the others,
+     * so a new pod neither attracts all traffic nor gets none.
+     */
+    private double prior(List<ServiceInstance> candidates) {
+        double sum = 0;
+        int sampled = 0;
+        for (ServiceInstance instance : candidates) {
+            InstanceLoadTracker.InstanceStats stats = tracker.stats(instance);
+            if (stats.hasSamples()) {
+                sum += stats.ewmaNanos();
+                sampled++;
+            }
+        }
+        return sampled == 0 ? 0 : sum / sampled;
+    }
+}
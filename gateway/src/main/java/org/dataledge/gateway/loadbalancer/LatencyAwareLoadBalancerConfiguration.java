@@ -0,0 +1,42 @@
+package org.dataledge.gateway.loadbalancer;
+
+import org.dataledge.gateway.config.LoadBalancingProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer client configuration, created once per service in its own child context.
+ * Deliberately not a {@code @Configuration}, component scanning must not pick it up for the main context.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(Environment environment,
+                                                                        LoadBalancerClientFactory clientFactory,
+                                                                        InstanceLoadTracker tracker,
+                                                                        LoadBalancingProperties properties) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(
+                clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                tracker,
+                properties);
+    }
+
+    /**
+     * The default discovery and caching chain, answered from the {@link RegistrySnapshot} while it is empty.
+     */
+    @Bean
+    public ServiceInstanceListSupplier snapshotFallbackServiceInstanceListSupplier(
+            ConfigurableApplicationContext context, RegistrySnapshot snapshot) {
+        return ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withCaching()
+                .with((ctx, delegate) -> new SnapshotFallbackServiceInstanceListSupplier(delegate, snapshot))
+                .build(context);
+    }
+}
@@ -0,0 +1,206 @@
+package org.dataledge.gateway.loadbalancer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.gateway.config.RegistrySnapshotProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last known good instances of every service, kept on local disk so a restarted gateway can route before its first
+ * Eureka fetch completes. Loaded at startup and reconciled on every registry refresh of the discovery client;
+ * a service Eureka currently lists without instances keeps its last known ones.
+ * <p>
+ * Routed from by {@link SnapshotFallbackServiceInstanceListSupplier} only while discovery has no instance of a service.
+ * Snapshot age is published as {@code gateway.registry.snapshot.age}, requests routed from it are counted in
+ * {@code gateway.registry.snapshot.routed}.
+ * <p>
+ * The file only helps a new pod when {@code gateway.registry-snapshot.path} lies on a volume that outlives pods,
+ * such as the claim the deployment shares between replicas; the default under {@code java.io.tmpdir} only
+ * covers restarts of the same container. Replicas sharing the file all write the same Eureka view, each with an
+ * atomic replace.
+ */
+@Component
+@Slf4j
+public class RegistrySnapshot {
+
+    private final RegistrySnapshotProperties properties;
+    private final DiscoveryClient discoveryClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+    private volatile Snapshot current;
+
+    /**
+     * File format, also what is held in memory.
+     * @param takenAt when discovery last had instances
+     */
+    record Snapshot(Instant takenAt, Map<String, Service> services) {
+
+        static final Snapshot EMPTY = new Snapshot(Instant.EPOCH, Map.of());
+    }
+
+    /**
+     * @param seenAt when discovery last listed these instances
+     */
+    record Service(Instant seenAt, List<Instance> instances) {
+    }
+
+    record Instance(String instanceId, String host, int port, boolean secure, Map<String, String> metadata) {
+
+        static Instance of(ServiceInstance instance) {
+            return new Instance(instance.getInstanceId(), instance.getHost(), instance.getPort(), instance.isSecure(),
+                    instance.getMetadata() != null ? new TreeMap<>(instance.getMetadata()) : Map.of());
+        }
+
+        ServiceInstance toServiceInstance(String serviceId) {
+            return new DefaultServiceInstance(instanceId, serviceId, host, port, secure, metadata);
+        }
+    }
+
+    @Autowired
+    public RegistrySnapshot(RegistrySnapshotProperties properties, DiscoveryClient discoveryClient,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(properties, discoveryClient, objectMapper, meterRegistry, Clock.systemUTC());
+    }
+
+    public RegistrySnapshot(RegistrySnapshotProperties properties, DiscoveryClient discoveryClient,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry, Clock clock) {
+        this.properties = properties;
+        this.discoveryClient = discoveryClient;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.current = properties.isEnabled() ? load(properties.getPath()) : Snapshot.EMPTY;
+
+        TimeGauge.builder("gateway.registry.snapshot.age", this, TimeUnit.SECONDS, RegistrySnapshot::ageSeconds)
+                .description("Time since the registry snapshot last matched Eureka, NaN without a snapshot")
+                .register(meterRegistry);
+        Gauge.builder("gateway.registry.snapshot.instances", this,
+                        snapshot -> snapshot.current.services().values().stream()
+                                .mapToInt(service -> service.instances().size()).sum())
+                .description("Instances in the registry snapshot, all services")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Last known instances of the service, empty when there are none or they are older than {@code max-age}.
+     * Counts the lookup as a routing decision made from the snapshot when it finds instances.
+     */
+    public List<ServiceInstance> instances(String serviceId) {
+        Service service = current.services().get(serviceId);
+        if (service == null || service.instances().isEmpty()
+                || service.seenAt().plus(properties.getMaxAge()).isBefore(clock.instant())) {
+            return List.of();
+        }
+        routed.computeIfAbsent(serviceId, id -> Counter.builder("gateway.registry.snapshot.routed")
+                        .description("Load balancer choices made from the registry snapshot, discovery had no instances")
+                        .tag("service", id)
+                        .register(meterRegistry))
+                .increment();
+        return service.instances().stream().map(instance -> instance.toServiceInstance(serviceId)).toList();
+    }
+
+    /**
+     * Published by the discovery client after each registry fetch.
+     */
+    @EventListener(HeartbeatEvent.class)
+    public void onRegistryRefreshed() {
+        if (properties.isEnabled()) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Takes the instances discovery lists now, writes the file when they changed.
+     */
+    void reconcile() {
+        Snapshot previous = current;
+        Instant now = clock.instant();
+        Map<String, Service> services = new TreeMap<>(previous.services());
+        boolean changed = false;
+        for (String serviceId : discoveryClient.getServices()) {
+            List<ServiceInstance> instances = discoveryClient.getInstances(serviceId);
+            if (instances.isEmpty()) {
+                continue;
+            }
+            List<Instance> listed = instances.stream().map(Instance::of).toList();
+            Service known = services.put(serviceId, new Service(now, listed));
+            changed |= known == null || !known.instances().equals(listed);
+        }
+        if (services.equals(previous.services())) {
+            // Nothing fetched yet or Eureka lost everything, keep what we know
+            return;
+        }
+
+        Snapshot snapshot = new Snapshot(now, Map.copyOf(services));
+        current = snapshot;
+        // Only seen times moved, written again once the instances change
+        if (changed) {
+            save(snapshot);
+        }
+    }
+
+    double ageSeconds() {
+        Snapshot snapshot = current;
+        if (snapshot.services().isEmpty()) {
+            return Double.NaN;
+        }
+        return Duration.between(snapshot.takenAt(), clock.instant()).toMillis() / 1000.0;
+    }
+
+    private Snapshot load(Path path) {
+        if (!Files.exists(path)) {
+            return Snapshot.EMPTY;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(path.toFile(), Snapshot.class);
+            if (snapshot.takenAt() == null || snapshot.services() == null) {
+                return Snapshot.EMPTY;
+            }
+            log.info("Loaded registry snapshot of {} from {}, {} services", snapshot.takenAt(), path,
+                    snapshot.services().size());
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable registry snapshot {}: {}", path, e.getMessage());
+            return Snapshot.EMPTY;
+        }
+    }
+
+    private void save(Snapshot snapshot) {
+        Path path = properties.getPath();
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // Written aside and moved, a crash mid-write must not leave half a file to load
+            Path written = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(written.toFile(), snapshot);
+            Files.move(written, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write registry snapshot {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.dataledge.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Answers with the {@link RegistrySnapshot} while discovery has no instances of the service,
+ * e.g. before the first Eureka fetch after a restart or when the fetch times out.
+ */
+public class SnapshotFallbackServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final RegistrySnapshot snapshot;
+
+    public SnapshotFallbackServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, RegistrySnapshot snapshot) {
+        super(delegate);
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return getDelegate().get()
+                .map(instances -> instances.isEmpty() ? snapshot.instances(getServiceId()) : instances);
+    }
+}
@@ -0,0 +1,60 @@
+package org.dataledge.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets local to this gateway instance.
+ * Each bucket is the generic cell rate algorithm form of a token bucket: a single theoretical arrival time,
+ * updated by compare-and-set, so deciding never takes a lock. Idle buckets are full again and get evicted.
+ */
+public class InMemoryRateLimiterBackend implements RateLimiterBackend {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+
+    public InMemoryRateLimiterBackend(long maxKeys, Duration idleExpiry, LongSupplier nanoClock) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .build();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(String key, RateLimitPolicy policy) {
+        return Mono.just(decide(key, policy));
+    }
+
+    public RateLimitDecision decide(String key, RateLimitPolicy policy) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long interval = policy.emissionIntervalNanos();
+        long burst = interval * policy.capacity();
+
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = theoreticalArrival.get();
+            // An idle bucket is full, its arrival time never lags behind now
+            long base = current == Long.MIN_VALUE ? now : Math.max(current, now);
+            long next = base + interval * policy.cost();
+            long ahead = next - now;
+
+            if (ahead > burst) {
+                return new RateLimitDecision(false, Math.max(0, (burst - (base - now)) / interval),
+                        Duration.ofNanos(ahead - burst));
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return new RateLimitDecision(true, (burst - ahead) / interval, Duration.ZERO);
+            }
+        }
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,11 @@
+package org.dataledge.gateway.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * @param allowed whether the tokens were taken
+ * @param remaining whole tokens left in the bucket
+ * @param retryAfter wait until a rejected request would fit, zero when allowed
+ */
+public record RateLimitDecision(boolean allowed, long remaining, Duration retryAfter) {
+}
@@ -0,0 +1,24 @@
+package org.dataledge.gateway.ratelimit;
+
+/**
+ * Token bucket shape of one route.
+ * @param capacity burst size, the bucket starts full
+ * @param refillPerSecond tokens added per second
+ * @param cost tokens taken by one request
+ */
+public record RateLimitPolicy(int capacity, double refillPerSecond, int cost) {
+
+    public RateLimitPolicy {
+        if (capacity < 1 || refillPerSecond <= 0 || cost < 1 || cost > capacity) {
+            throw new IllegalArgumentException("Invalid rate limit: capacity=" + capacity
+                    + ", refillPerSecond=" + refillPerSecond + ", cost=" + cost);
+        }
+    }
+
+    /**
+     * Time in which one token comes back.
+     */
+    public long emissionIntervalNanos() {
+        return Math.max(1L, Math.round(1_000_000_000d / refillPerSecond));
+    }
+}
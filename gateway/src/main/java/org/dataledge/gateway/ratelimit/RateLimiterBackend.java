@@ -0,0 +1,15 @@
+package org.dataledge.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Storage of the token buckets behind {@code UserRateLimitFilter}.
+ * Implementations must decide atomically, concurrent requests for one key may arrive on any gateway instance.
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * Takes {@code policy.cost()} tokens from the bucket of {@code key} if it holds enough.
+     */
+    Mono<RateLimitDecision> tryAcquire(String key, RateLimitPolicy policy);
+}
@@ -0,0 +1,74 @@
+package org.dataledge.gateway.ratelimit;
+
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token buckets shared by all gateway instances.
+ * Same algorithm as {@link InMemoryRateLimiterBackend}, run as one Lua script so the read and the update are atomic.
+ * The script uses the Redis clock, gateway instances with drifting clocks still agree.
+ */
+public class RedisRateLimiterBackend implements RateLimiterBackend {
+
+    // KEYS[1] bucket, ARGV interval and burst in microseconds, cost in tokens.
+    // Returns {allowed, remaining, retry after in microseconds}.
+    static final String SCRIPT = """
+            local interval = tonumber(ARGV[1])
+            local burst = tonumber(ARGV[2])
+            local cost = tonumber(ARGV[3])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local base = tonumber(redis.call('GET', KEYS[1]))
+            if not base or base < now then
+              base = now
+            end
+            local nextArrival = base + interval * cost
+            local ahead = nextArrival - now
+            if ahead > burst then
+              return {0, math.floor((burst - (base - now)) / interval), ahead - burst}
+            end
+            redis.call('SET', KEYS[1], string.format('%d', nextArrival), 'PX', math.ceil(ahead / 1000))
+            return {1, math.floor((burst - ahead) / interval), 0}
+            """;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REDIS_SCRIPT = RedisScript.of(SCRIPT, List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisRateLimiterBackend(ReactiveStringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(String key, RateLimitPolicy policy) {
+        long intervalMicros = Math.max(1L, policy.emissionIntervalNanos() / 1_000);
+        List<String> args = List.of(
+                Long.toString(intervalMicros),
+                Long.toString(intervalMicros * policy.capacity()),
+                Integer.toString(policy.cost()));
+
+        return redisTemplate.execute(REDIS_SCRIPT, List.of(keyPrefix + key), args)
+                .reduce(new ArrayList<Long>(), (values, result) -> {
+                    for (Object value : result) {
+                        values.add(((Number) value).longValue());
+                    }
+                    return values;
+                })
+                .map(RedisRateLimiterBackend::toDecision);
+    }
+
+    static RateLimitDecision toDecision(List<Long> result) {
+        if (result.size() != 3) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+        return new RateLimitDecision(result.get(0) == 1L, result.get(1), Duration.ofNanos(result.get(2) * 1_000));
+    }
+}
@@ -0,0 +1,110 @@
+package org.dataledge.gateway.revocation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataledge.gateway.util.VerifiedToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Tokens revoked before their expiry, checked on every authenticated request with two hash lookups and no I/O.
+ * Entries live only until the revoked tokens would have expired anyway, so the list stays as small as the number
+ * of logouts and deletions within one token lifetime. Filled from {@link TokenRevocationListener}.
+ * <p>
+ * A gateway only knows the revocations published while it runs; one started later accepts tokens revoked earlier.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final Cache<String, Instant> revokedTokens;
+    private final Cache<String, Revocation> revokedUsers;
+    private final Clock clock;
+
+    /**
+     * Tokens of the user issued at or before {@code before} are revoked.
+     */
+    private record Revocation(Instant before, Instant expiresAt) {
+    }
+
+    @Autowired
+    public TokenRevocationList(MeterRegistry meterRegistry) {
+        this(Clock.systemUTC(), meterRegistry);
+    }
+
+    public TokenRevocationList(Clock clock, MeterRegistry meterRegistry) {
+        this.clock = clock;
+        this.revokedTokens = Caffeine.newBuilder()
+                .expireAfter(new ExpireAt<String, Instant>(clock, expiresAt -> expiresAt))
+                .build();
+        this.revokedUsers = Caffeine.newBuilder()
+                .expireAfter(new ExpireAt<String, Revocation>(clock, Revocation::expiresAt))
+                .build();
+        Gauge.builder("gateway.auth.revocations", this, list -> list.revokedTokens.estimatedSize())
+                .description("Revoked tokens not yet expired")
+                .tag("kind", "token")
+                .register(meterRegistry);
+        Gauge.builder("gateway.auth.revocations", this, list -> list.revokedUsers.estimatedSize())
+                .description("Revoked tokens not yet expired")
+                .tag("kind", "user")
+                .register(meterRegistry);
+    }
+
+    public void revoke(TokenRevokedEvent event) {
+        Instant expiresAt = Instant.ofEpochMilli(event.expiresAt());
+        if (!expiresAt.isAfter(clock.instant())) {
+            return;
+        }
+        if (event.tokenId() != null) {
+            revokedTokens.put(event.tokenId(), expiresAt);
+        }
+        if (event.revokedBefore() != null && event.userId() != null) {
+            Revocation revocation = new Revocation(Instant.ofEpochMilli(event.revokedBefore()), expiresAt);
+            // A later revocation of the same user covers the earlier one
+            revokedUsers.asMap().merge(event.userId().toString(), revocation,
+                    (current, added) -> added.before().isAfter(current.before()) ? added : current);
+        }
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.tokenId() != null && revokedTokens.getIfPresent(token.tokenId()) != null) {
+            return true;
+        }
+        if (token.userId() == null) {
+            return false;
+        }
+        Revocation revocation = revokedUsers.getIfPresent(token.userId());
+        // iat has whole seconds only, compare at that precision
+        return revocation != null && (token.issuedAt() == null
+                || token.issuedAt().getEpochSecond() <= revocation.before().getEpochSecond());
+    }
+
+    /**
+     * Drops every entry when the tokens it revokes expire.
+     */
+    private record ExpireAt<K, V>(Clock clock, Function<V, Instant> expiresAt)
+            implements Expiry<K, V> {
+
+        @Override
+        public long expireAfterCreate(K key, V value, long currentTime) {
+            long remainingMillis = expiresAt.apply(value).toEpochMilli() - clock.millis();
+            return Math.max(0, remainingMillis) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.dataledge.gateway.revocation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class TokenRevocationListener {
+
+    private final TokenRevocationList revocationList;
+
+    public TokenRevocationListener(TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    @RabbitListener(queues = "#{revocationQueue.name}")
+    public void handleTokenRevoked(TokenRevokedEvent event) {
+        log.info("Tokens of user {} revoked", event.userId());
+        revocationList.revoke(event);
+    }
+}
@@ -0,0 +1,11 @@
+package org.dataledge.gateway.revocation;
+
+/**
+ * Published by the identity service on logout and account deletion.
+ * @param tokenId {@code jti} of the one revoked token, null for user-wide revocations
+ * @param userId owner of the revoked tokens
+ * @param revokedBefore epoch millis, every token of the user issued at or before it is revoked
+ * @param expiresAt epoch millis after which every affected token has expired on its own
+ */
+public record TokenRevokedEvent(String tokenId, Integer userId, Long revokedBefore, long expiresAt) {
+}
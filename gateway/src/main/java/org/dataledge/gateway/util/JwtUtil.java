@@ -1,61 +1,166 @@
 package org.dataledge.gateway.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.dataledge.gateway.config.JwtKeyProperties;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
+/**
+ * Verifies access tokens issued by the identity service.
+ * The key and the parser are built once; {@link #resolve(String)} parses and verifies a token a single time
+ * and remembers the outcome until the token expires, so repeat requests skip the HMAC check entirely.
+ * The key is picked by the token's {@code kid}, see {@link JwtKeyProperties}.
+ */
 @Component
 public class JwtUtil {
-    @Value("${JWT_SECRET}")
-    private String secret;
 
-    @Value("${JWT_EXPIRATION_MS}")
-    private int jwtExpirationMs;
+    private final SecretKey signKey;
+    private final Map<String, SecretKey> keys;
+    private final JwtParser parser;
+    // Keyed by SHA-256 of the token, so the cache never holds usable bearer tokens
+    private final Cache<TokenHash, VerifiedToken> verifiedTokens;
 
-    public void validateToken(final String token) {
-        Jwts.parser()
-                .verifyWith((SecretKey) getSignKey())
-                .build()
-                .parseSignedClaims(token);
+    public JwtUtil(@Value("${JWT_SECRET}") String secret,
+                   @Value("${gateway.jwt.cache.max-size:10000}") long cacheMaxSize,
+                   JwtKeyProperties keyProperties,
+                   ObjectProvider<MeterRegistry> meterRegistry) {
+        this.signKey = key(secret);
+        this.keys = new HashMap<>();
+        keyProperties.getVerificationKeys().forEach((kid, other) -> keys.put(kid, key(other)));
+        keys.put(keyProperties.getKeyId(), signKey);
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry ->
+                CaffeineCacheMetrics.monitor(registry, verifiedTokens, "gateway.jwt.verified"));
     }
 
-    public String extractUserIdClaim(String token) {
-        // Safely extract the custom claim and cast it as String
-        return extractClaim(token, claims -> claims.get("userId", String.class));
+    private static SecretKey key(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
     }
 
-    public String extractUsernameEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+    private Key verificationKey(String kid) {
+        if (kid == null) {
+            // Issued before tokens carried a kid
+            return signKey;
+        }
+        SecretKey key = keys.get(kid);
+        if (key == null) {
+            throw new SignatureException("Token signed with unknown key " + kid);
+        }
+        return key;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Single-parse validation, served from the verified token cache when possible.
+     * @param token the compact JWT from the request
+     * @return the claims the gateway needs downstream
+     * @throws JwtException when the token is malformed, expired or not signed with our key
+     */
+    public VerifiedToken resolve(String token) {
+        TokenHash key = TokenHash.of(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = verify(token);
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * Parses and verifies the token without touching the cache.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = parseClaims(token);
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            // Without exp the token would be valid forever, the identity service always sets it
+            throw new JwtException("Token has no expiration");
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return new VerifiedToken(claims.get("userId", String.class), claims.getSubject(), claims.getId(),
+                issuedAt != null ? issuedAt.toInstant() : null, expiration.toInstant());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    // --- Key Derivation ---
+    /**
+     * SHA-256 of a token held as four longs, cheap to compare and hash.
+     */
+    record TokenHash(long a, long b, long c, long d) {
+
+        private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        static TokenHash of(String token) {
+            ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenHash(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+
+    /**
+     * Drops every entry exactly when its token expires.
+     */
+    private static final class ExpireAtTokenExpiry implements Expiry<TokenHash, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenHash key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAt().toEpochMilli() - Instant.now().toEpochMilli();
+            return Math.max(0, remainingMillis) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenHash key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
 
-    private Key getSignKey() {
-        // Uses the injected instance field 'secret'
-        byte[] keyBytes = Decoders.BASE64.decode(this.secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        @Override
+        public long expireAfterRead(TokenHash key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
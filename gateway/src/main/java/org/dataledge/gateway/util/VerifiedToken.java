@@ -0,0 +1,14 @@
+package org.dataledge.gateway.util;
+
+import java.time.Instant;
+
+/**
+ * Claims of an access token whose signature and expiry were already checked.
+ * @param userId value of the custom {@code userId} claim
+ * @param subject the user's email
+ * @param tokenId the token's {@code jti}, null for tokens issued before the identity service set one
+ * @param issuedAt the token's {@code iat}, null when absent
+ * @param expiresAt the token's {@code exp}
+ */
+public record VerifiedToken(String userId, String subject, String tokenId, Instant issuedAt, Instant expiresAt) {
+}
@@ -0,0 +1,200 @@
+package org.dataledge.gateway;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.JwtKeyProperties;
+import org.dataledge.gateway.config.OpenEndpointsProperties;
+import org.dataledge.gateway.filter.AuthenticationFilter;
+import org.dataledge.gateway.filter.RouteValidator;
+import org.dataledge.gateway.revocation.TokenRevocationList;
+import org.dataledge.gateway.revocation.TokenRevokedEvent;
+import org.dataledge.gateway.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuthenticationFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicReference<String> forwardedUserId = new AtomicReference<>();
+    private final GatewayFilterChain upstream = exchange -> {
+        forwardedUserId.set(exchange.getRequest().getHeaders().getFirst(DataLedgeUtil.USER_ID_HEADER));
+        return Mono.empty();
+    };
+
+    private byte[] keyBytes;
+    private TokenRevocationList revocationList;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        keyBytes = randomKey();
+        JwtUtil jwtUtil = new JwtUtil(Base64.getEncoder().encodeToString(keyBytes), 100, new JwtKeyProperties(),
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        revocationList = new TokenRevocationList(meterRegistry);
+        filter = new AuthenticationFilter(new RouteValidator(new OpenEndpointsProperties()), jwtUtil, revocationList,
+                meterRegistry).apply(new AuthenticationFilter.Config());
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static String token(byte[] key, long expiresInMillis) {
+        return token(key, expiresInMillis, UUID.randomUUID().toString(), new Date());
+    }
+
+    private static String token(byte[] key, long expiresInMillis, String tokenId, Date issuedAt) {
+        return Jwts.builder()
+                .claim("userId", "42")
+                .id(tokenId)
+                .issuedAt(issuedAt)
+                .subject("user@dataledge.org")
+                .expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+                .signWith(Keys.hmacShaKeyFor(key), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    private static MockServerWebExchange exchange(String token) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/datasources");
+        if (token != null) {
+            request.cookie(new HttpCookie(AuthenticationFilter.TOKEN_COOKIE, token));
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    private MockServerWebExchange send(String token) {
+        MockServerWebExchange exchange = exchange(token);
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.counter("gateway.auth.rejections", "reason", reason).count();
+    }
+
+    @Test
+    void validTokenIsForwardedWithUserId() {
+        MockServerWebExchange exchange = send(token(keyBytes, 60_000));
+
+        assertThat(forwardedUserId).hasValue("42");
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    void missingTokenGetsPrebuiltUnauthorized() {
+        MockServerWebExchange exchange = send(null);
+
+        assertThat(forwardedUserId).hasNullValue();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange.getResponse().getBodyAsString().block())
+                .isEqualTo("{\"statusCode\":401,\"message\":\"Missing authorization cookie or header\"}");
+        assertThat(rejections("missing-token")).isEqualTo(1);
+    }
+
+    @Test
+    void rejectionsAreCountedByReason() {
+        send("definitely not a jwt");
+        send(token(keyBytes, -60_000));
+        send(token(randomKey(), 60_000));
+
+        assertThat(forwardedUserId).hasNullValue();
+        assertThat(rejections("malformed")).isEqualTo(1);
+        assertThat(rejections("expired")).isEqualTo(1);
+        assertThat(rejections("bad-signature")).isEqualTo(1);
+    }
+
+    @Test
+    void tokensAreVerifiedWithTheKeyTheirKidNames() {
+        byte[] retired = randomKey();
+        JwtKeyProperties keys = new JwtKeyProperties();
+        keys.setKeyId("2025-06");
+        keys.getVerificationKeys().put("2025-01", Base64.getEncoder().encodeToString(retired));
+        JwtUtil jwtUtil = new JwtUtil(Base64.getEncoder().encodeToString(keyBytes), 100, keys,
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        GatewayFilter rotating = new AuthenticationFilter(new RouteValidator(new OpenEndpointsProperties()), jwtUtil,
+                revocationList, meterRegistry).apply(new AuthenticationFilter.Config());
+
+        // Retired key, current key, and a token from before kids
+        for (String token : List.of(signed(retired, "2025-01"), signed(keyBytes, "2025-06"), token(keyBytes, 60_000))) {
+            forwardedUserId.set(null);
+            rotating.filter(exchange(token), upstream).block();
+            assertThat(forwardedUserId).hasValue("42");
+        }
+
+        forwardedUserId.set(null);
+        rotating.filter(exchange(signed(retired, "2024-01")), upstream).block();
+        assertThat(forwardedUserId).hasNullValue();
+        assertThat(rejections("bad-signature")).isEqualTo(1);
+    }
+
+    private static String signed(byte[] key, String keyId) {
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .claim("userId", "42")
+                .subject("user@dataledge.org")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(key), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenWhenAlreadyVerified() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        String token = token(keyBytes, 60_000, "session-1", new Date());
+        String otherSession = token(keyBytes, 60_000, "session-2", new Date());
+        send(token);
+        assertThat(forwardedUserId).hasValue("42");
+        forwardedUserId.set(null);
+
+        revocationList.revoke(new TokenRevokedEvent("session-1", 42, null, expiresAt));
+
+        assertThat(send(token).getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(rejections("revoked")).isEqualTo(1);
+        send(otherSession);
+        assertThat(forwardedUserId).hasValue("42");
+    }
+
+    @Test
+    void userWideRevocationCoversTokensIssuedUpToIt() {
+        long now = System.currentTimeMillis();
+        String older = token(keyBytes, 60_000, "older", new Date(now - 120_000));
+        String newer = token(keyBytes, 60_000, "newer", new Date(now + 5_000));
+
+        revocationList.revoke(new TokenRevokedEvent(null, 42, now, now + 60_000));
+
+        assertThat(send(older).getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        send(newer);
+        assertThat(forwardedUserId).hasValue("42");
+    }
+
+    @Test
+    void openPathNeedsNoToken() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/auth/authenticate"));
+
+        filter.filter(exchange, upstream).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+    }
+}
@@ -0,0 +1,101 @@
+package org.dataledge.gateway;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.filter.DashboardAggregationFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DashboardAggregationFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> userIdByPath = new ConcurrentHashMap<>();
+
+    private GatewayFilter filter(Function<ClientRequest, Mono<ClientResponse>> services) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    userIdByPath.put(request.url().getPath(),
+                            String.valueOf(request.headers().getFirst(DataLedgeUtil.USER_ID_HEADER)));
+                    return services.apply(request);
+                })
+                .build();
+        DashboardAggregationFilter.Config config = new DashboardAggregationFilter.Config();
+        config.setFilesTimeout(Duration.ofMillis(200));
+        return new DashboardAggregationFilter(webClient, objectMapper, new SimpleMeterRegistry()).apply(config);
+    }
+
+    private static Mono<ClientResponse> json(String body) {
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private JsonNode dashboard(GatewayFilter filter, MockServerWebExchange exchange) throws Exception {
+        filter.filter(exchange, e -> Mono.error(new AssertionError("Aggregation must not be routed"))).block();
+        return objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+    }
+
+    private static MockServerWebExchange request() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/bff/dashboard")
+                .header(DataLedgeUtil.USER_ID_HEADER, "42"));
+    }
+
+    @Test
+    void sectionsAreJoinedAndFailuresReportedPerSection() throws Exception {
+        GatewayFilter filter = filter(request -> switch (request.url().getPath()) {
+            case "/auth/me" -> json("{\"id\":42,\"name\":\"Ada\"}");
+            case "/datasources" -> json("{\"items\":[{\"id\":1},{\"id\":2}]}");
+            case "/datasource-types" -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+            case "/blob/getFiles" -> request.url().getQuery().contains("dsId=1")
+                    ? json("{\"blobsData\":[]}")
+                    : json("{}").delayElement(Duration.ofSeconds(5));
+            default -> Mono.error(new IllegalStateException(request.url().toString()));
+        });
+        MockServerWebExchange exchange = request();
+
+        JsonNode body = dashboard(filter, exchange);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body.path("user").path("name").asText()).isEqualTo("Ada");
+        assertThat(body.path("datasources").path("items")).hasSize(2);
+        assertThat(body.path("datasourceTypes").isNull()).isTrue();
+        assertThat(body.path("files").path("1").path("blobsData").isArray()).isTrue();
+        assertThat(body.path("files").path("2").isNull()).isTrue();
+        assertThat(body.path("errors").path("datasourceTypes").asText()).isEqualTo("503");
+        assertThat(body.path("errors").path("files.2").asText()).isEqualTo("timeout");
+        assertThat(userIdByPath).containsEntry("/datasources", "42").containsEntry("/blob/getFiles", "42");
+    }
+
+    @Test
+    void everySectionFailingIsBadGateway() throws Exception {
+        GatewayFilter filter = filter(request -> Mono.error(new IllegalStateException("connection refused")));
+        MockServerWebExchange exchange = request();
+
+        JsonNode body = dashboard(filter, exchange);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+        assertThat(body.path("errors").size()).isEqualTo(3);
+        assertThat(List.of("user", "datasources", "datasourceTypes"))
+                .allSatisfy(section -> assertThat(body.path("errors").path(section).asText()).isEqualTo("unavailable"));
+    }
+}
@@ -0,0 +1,198 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.gateway.filter.HedgingFilter;
+import org.dataledge.gateway.filter.hedge.RetryBudget;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HedgingFilterTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private GatewayFilter filter(int budgetMaxTokens) {
+        return filter(budgetMaxTokens, 1024);
+    }
+
+    private GatewayFilter filter(int budgetMaxTokens, int maxBodyBytes) {
+        HedgingFilter.Config config = new HedgingFilter.Config();
+        config.setRouteId("datasources");
+        config.setPaths(List.of("/datasources"));
+        config.setMinDelay(Duration.ofMillis(20));
+        config.setMaxDelay(Duration.ofMillis(20));
+        config.setBudgetMaxTokens(budgetMaxTokens);
+        config.setBudgetMinPerSecond(0);
+        config.setMaxBodyBytes(maxBodyBytes);
+        return new HedgingFilter(new SimpleMeterRegistry()).apply(config);
+    }
+
+    /**
+     * Upstream where attempt n answers after the n-th delay with the n-th status.
+     */
+    private GatewayFilterChain upstream(List<Duration> delays, List<HttpStatus> statuses) {
+        return exchange -> {
+            int attempt = attempts.getAndIncrement();
+            ServerHttpResponse response = exchange.getResponse();
+            return Mono.delay(delays.get(attempt)).then(Mono.defer(() -> {
+                response.setStatusCode(statuses.get(attempt));
+                return response.writeWith(Mono.just(response.bufferFactory()
+                        .wrap(("attempt " + attempt).getBytes(StandardCharsets.UTF_8))));
+            }));
+        };
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    @Test
+    void slowPrimaryIsOvertakenByHedge() {
+        MockServerWebExchange exchange = get("/datasources");
+
+        filter(10).filter(exchange, upstream(
+                List.of(Duration.ofSeconds(5), Duration.ofMillis(1)),
+                List.of(HttpStatus.OK, HttpStatus.OK))).block(Duration.ofSeconds(2));
+
+        assertThat(attempts).hasValue(2);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt 1");
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() {
+        MockServerWebExchange exchange = get("/datasources");
+
+        filter(10).filter(exchange, upstream(List.of(Duration.ZERO), List.of(HttpStatus.OK))).block();
+
+        assertThat(attempts).hasValue(1);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt 0");
+    }
+
+    @Test
+    void unavailableAnswerIsRetriedOnce() {
+        MockServerWebExchange exchange = get("/datasources");
+
+        filter(10).filter(exchange, upstream(
+                List.of(Duration.ZERO, Duration.ZERO),
+                List.of(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK))).block();
+
+        assertThat(attempts).hasValue(2);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void failureIsPassedOnWhenBudgetIsSpent() {
+        GatewayFilter filter = filter(1);
+        GatewayFilterChain failing = exchange -> {
+            attempts.incrementAndGet();
+            return Mono.error(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT));
+        };
+
+        assertThatThrownBy(() -> filter.filter(get("/datasources"), failing).block())
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(attempts).hasValue(2);
+
+        assertThatThrownBy(() -> filter.filter(get("/datasources"), failing).block(Duration.ofSeconds(1)))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void pathsOutsideTheListAreForwardedOnce() {
+        MockServerWebExchange exchange = get("/datasources/export");
+
+        filter(10).filter(exchange, upstream(List.of(Duration.ofMillis(100)), List.of(HttpStatus.OK))).block();
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void answerOverTheBufferIsStreamedWithoutAnotherCall() {
+        MockServerWebExchange exchange = get("/datasources");
+        GatewayFilterChain large = upstreamExchange -> {
+            attempts.incrementAndGet();
+            ServerHttpResponse response = upstreamExchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            return response.writeWith(Flux.range(0, 10).map(chunk -> response.bufferFactory()
+                    .wrap(("chunk " + chunk + ";").getBytes(StandardCharsets.UTF_8))));
+        };
+
+        filter(10, 32).filter(exchange, large).block(Duration.ofSeconds(2));
+
+        assertThat(attempts).hasValue(1);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block())
+                .isEqualTo("chunk 0;chunk 1;chunk 2;chunk 3;chunk 4;chunk 5;chunk 6;chunk 7;chunk 8;chunk 9;");
+    }
+
+    @Test
+    void largeHedgeIsStreamedAndPrimaryCancelled() {
+        MockServerWebExchange exchange = get("/datasources");
+        AtomicInteger cancelled = new AtomicInteger();
+        GatewayFilterChain upstream = upstreamExchange -> {
+            int attempt = attempts.getAndIncrement();
+            ServerHttpResponse response = upstreamExchange.getResponse();
+            return Mono.delay(attempt == 0 ? Duration.ofSeconds(5) : Duration.ofMillis(1))
+                    .doOnCancel(cancelled::incrementAndGet)
+                    .then(Mono.defer(() -> {
+                        response.setStatusCode(HttpStatus.OK);
+                        return response.writeWith(Flux.range(0, 4).map(chunk -> response.bufferFactory()
+                                .wrap(("attempt " + attempt + ";").getBytes(StandardCharsets.UTF_8))));
+                    }));
+        };
+
+        filter(10, 16).filter(exchange, upstream).block(Duration.ofSeconds(2));
+
+        assertThat(attempts).hasValue(2);
+        assertThat(cancelled).hasValue(1);
+        assertThat(exchange.getResponse().getBodyAsString().block())
+                .isEqualTo("attempt 1;attempt 1;attempt 1;attempt 1;");
+    }
+
+    @Test
+    void runsBeforeTheUpstreamBodyIsWritten() {
+        // Else the body would be written past the attempts' own responses
+        assertThat(filter(10)).isInstanceOfSatisfying(Ordered.class, ordered ->
+                assertThat(ordered.getOrder()).isLessThan(NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER));
+    }
+
+    @Test
+    void budgetRefillsFromTrafficAndTime() {
+        AtomicLong now = new AtomicLong();
+        RetryBudget budget = new RetryBudget(0.5, 1, 2, now::get);
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        budget.deposit();
+        budget.deposit();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(budget.tokens()).isZero();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+}
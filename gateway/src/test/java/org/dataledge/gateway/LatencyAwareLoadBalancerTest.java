@@ -0,0 +1,159 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.gateway.config.LoadBalancingProperties;
+import org.dataledge.gateway.filter.HedgingFilter;
+import org.dataledge.gateway.loadbalancer.InstanceLoadFilter;
+import org.dataledge.gateway.loadbalancer.InstanceLoadTracker;
+import org.dataledge.gateway.loadbalancer.LatencyAwareLoadBalancer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyAwareLoadBalancerTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private final ServiceInstance fast = instance("fast", Map.of());
+    private final ServiceInstance slow = instance("slow", Map.of());
+    private final ServiceInstance cold = instance("cold", Map.of("warming-up", "true"));
+    private LoadBalancingProperties properties;
+    private InstanceLoadTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LoadBalancingProperties();
+        properties.setEwmaDecay(Duration.ofSeconds(10));
+        tracker = new InstanceLoadTracker(properties, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private static ServiceInstance instance(String id, Map<String, String> metadata) {
+        return new DefaultServiceInstance(id, "DATASOURCE-SERVICE", id, 8080, false, metadata);
+    }
+
+    private LatencyAwareLoadBalancer balancer(LoadBalancingProperties.Strategy strategy) {
+        properties.setStrategy(strategy);
+        return new LatencyAwareLoadBalancer(
+                new DefaultListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class), tracker, properties);
+    }
+
+    /**
+     * Goes through the lifecycle callbacks like the gateway's load balancer filter does, and through
+     * the counting of {@link InstanceLoadFilter}.
+     */
+    private void call(ServiceInstance instance, Duration latency) {
+        DefaultRequest<Object> request = new DefaultRequest<>(new RequestDataContext());
+        DefaultResponse response = new DefaultResponse(instance);
+        long start = tracker.requestStarted(instance);
+        tracker.onStartRequest(request, response);
+        clock.addAndGet(latency.toNanos());
+        tracker.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+        tracker.requestEnded(instance, start, false);
+    }
+
+    private long picks(LatencyAwareLoadBalancer balancer, List<ServiceInstance> instances, ServiceInstance expected) {
+        return IntStream.range(0, 1_000)
+                .mapToObj(i -> balancer.choose(instances).getServer())
+                .filter(expected::equals)
+                .count();
+    }
+
+    @Test
+    void warmingUpInstancesOnlyServeWhenNothingElseIsUp() {
+        LatencyAwareLoadBalancer balancer = balancer(LoadBalancingProperties.Strategy.P2C_EWMA);
+
+        assertThat(picks(balancer, List.of(fast, cold), cold)).isZero();
+        assertThat(balancer.choose(List.of(cold)).getServer()).isEqualTo(cold);
+        assertThat(balancer.choose(List.of()).hasServer()).isFalse();
+    }
+
+    @Test
+    void ewmaAvoidsTheSlowInstance() {
+        for (int i = 0; i < 5; i++) {
+            call(fast, Duration.ofMillis(20));
+            call(slow, Duration.ofMillis(800));
+        }
+
+        assertThat(picks(balancer(LoadBalancingProperties.Strategy.EWMA), List.of(fast, slow), fast)).isEqualTo(1_000);
+        // Two instances, so both choices are always compared
+        assertThat(picks(balancer(LoadBalancingProperties.Strategy.P2C_EWMA), List.of(fast, slow), fast))
+                .isEqualTo(1_000);
+    }
+
+    @Test
+    void queuedRequestsOutweighLatency() {
+        call(fast, Duration.ofMillis(20));
+        call(slow, Duration.ofMillis(30));
+        // A GC pause: requests pile up on the fast instance and never complete
+        for (int i = 0; i < 10; i++) {
+            tracker.requestStarted(fast);
+        }
+
+        assertThat(picks(balancer(LoadBalancingProperties.Strategy.EWMA), List.of(fast, slow), slow)).isEqualTo(1_000);
+        assertThat(picks(balancer(LoadBalancingProperties.Strategy.LEAST_OUTSTANDING), List.of(fast, slow), slow))
+                .isEqualTo(1_000);
+    }
+
+    @Test
+    void attemptCancelledByAHedgeIsNoLongerOutstanding() {
+        InstanceLoadFilter loadFilter = new InstanceLoadFilter(tracker);
+        AtomicInteger attempts = new AtomicInteger();
+        // The first attempt lands on the slow instance and never answers, the hedge on the fast one
+        GatewayFilterChain routed = exchange -> {
+            ServiceInstance instance = attempts.getAndIncrement() == 0 ? slow : fast;
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+                    new DefaultResponse(instance));
+            return loadFilter.filter(exchange, upstream -> {
+                if (instance == slow) {
+                    return Mono.never();
+                }
+                upstream.getResponse().setStatusCode(HttpStatus.OK);
+                return upstream.getResponse().setComplete();
+            });
+        };
+        HedgingFilter.Config config = new HedgingFilter.Config();
+        config.setRouteId("datasources");
+        config.setMinDelay(Duration.ofMillis(10));
+        config.setMaxDelay(Duration.ofMillis(10));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/datasources"));
+
+        new HedgingFilter(new SimpleMeterRegistry()).apply(config).filter(exchange, routed).block(Duration.ofSeconds(2));
+
+        assertThat(attempts).hasValue(2);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(tracker.stats(slow).outstanding()).isZero();
+        assertThat(tracker.stats(fast).outstanding()).isZero();
+        assertThat(tracker.stats(slow).hasSamples()).isTrue();
+    }
+
+    @Test
+    void oldLatencyFades() {
+        call(slow, Duration.ofMillis(1_000));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        call(slow, Duration.ofMillis(10));
+
+        assertThat(tracker.stats(slow).ewmaNanos()).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+}
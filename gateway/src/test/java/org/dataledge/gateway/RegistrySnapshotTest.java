@@ -0,0 +1,158 @@
+package org.dataledge.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.gateway.config.RegistrySnapshotProperties;
+import org.dataledge.gateway.loadbalancer.RegistrySnapshot;
+import org.dataledge.gateway.loadbalancer.SnapshotFallbackServiceInstanceListSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RegistrySnapshotTest {
+
+    private static final String SERVICE = "DATASOURCE-SERVICE";
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    private final Map<String, List<ServiceInstance>> registry = new HashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private RegistrySnapshotProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RegistrySnapshotProperties();
+        properties.setPath(directory.resolve("registry-snapshot.json"));
+        properties.setMaxAge(Duration.ofHours(6));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private RegistrySnapshot snapshot(Instant now) {
+        return new RegistrySnapshot(properties, new StubDiscoveryClient(), objectMapper, meterRegistry,
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static ServiceInstance instance(String id) {
+        return new DefaultServiceInstance(id, SERVICE, id, 8080, false, Map.of("zone", "a"));
+    }
+
+    private static ServiceInstanceListSupplier discovering(List<ServiceInstance> instances) {
+        return new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+    }
+
+    @Test
+    void routesFromTheSnapshotAfterARestart() {
+        registry.put(SERVICE, List.of(instance("ds-1"), instance("ds-2")));
+        snapshot(NOW).onRegistryRefreshed();
+        assertThat(properties.getPath()).exists();
+
+        // Restarted, Eureka has not answered yet
+        registry.clear();
+        meterRegistry = new SimpleMeterRegistry();
+        RegistrySnapshot restarted = snapshot(NOW.plus(Duration.ofMinutes(5)));
+        List<ServiceInstance> instances = new SnapshotFallbackServiceInstanceListSupplier(discovering(List.of()), restarted)
+                .get().blockFirst();
+
+        assertThat(instances).extracting(ServiceInstance::getInstanceId).containsExactly("ds-1", "ds-2");
+        assertThat(instances.get(0).getServiceId()).isEqualTo(SERVICE);
+        assertThat(instances.get(0).getMetadata()).containsEntry("zone", "a");
+        assertThat(meterRegistry.counter("gateway.registry.snapshot.routed", "service", SERVICE).count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.registry.snapshot.age").timeGauge().value()).isEqualTo(300);
+    }
+
+    @Test
+    void prefersDiscoveryWhileItHasInstances() {
+        registry.put(SERVICE, List.of(instance("ds-1")));
+        RegistrySnapshot snapshot = snapshot(NOW);
+        snapshot.onRegistryRefreshed();
+
+        List<ServiceInstance> instances = new SnapshotFallbackServiceInstanceListSupplier(
+                discovering(List.of(instance("ds-3"))), snapshot).get().blockFirst();
+
+        assertThat(instances).extracting(ServiceInstance::getInstanceId).containsExactly("ds-3");
+        assertThat(meterRegistry.find("gateway.registry.snapshot.routed").counter()).isNull();
+    }
+
+    @Test
+    void keepsLastKnownInstancesWhileEurekaListsNone() {
+        registry.put(SERVICE, List.of(instance("ds-1")));
+        RegistrySnapshot snapshot = snapshot(NOW);
+        snapshot.onRegistryRefreshed();
+
+        registry.put(SERVICE, List.of());
+        snapshot.onRegistryRefreshed();
+
+        assertThat(snapshot.instances(SERVICE)).extracting(ServiceInstance::getInstanceId).containsExactly("ds-1");
+        assertThat(snapshot(NOW).instances(SERVICE)).hasSize(1);
+    }
+
+    @Test
+    void ignoresInstancesOlderThanMaxAge() {
+        registry.put(SERVICE, List.of(instance("ds-1")));
+        snapshot(NOW).onRegistryRefreshed();
+
+        RegistrySnapshot restarted = snapshot(NOW.plus(Duration.ofHours(7)));
+
+        assertThat(restarted.instances(SERVICE)).isEmpty();
+        assertThat(new SnapshotFallbackServiceInstanceListSupplier(discovering(List.of()), restarted).get().blockFirst())
+                .isEmpty();
+    }
+
+    @Test
+    void startsEmptyWithoutAReadableFile() throws Exception {
+        Files.writeString(properties.getPath(), "{\"takenAt\":");
+
+        RegistrySnapshot snapshot = snapshot(NOW);
+
+        assertThat(snapshot.instances(SERVICE)).isEmpty();
+        assertThat(meterRegistry.get("gateway.registry.snapshot.age").timeGauge().value()).isNaN();
+    }
+
+    private class StubDiscoveryClient implements DiscoveryClient {
+
+        @Override
+        public String description() {
+            return "stub";
+        }
+
+        @Override
+        public List<ServiceInstance> getInstances(String serviceId) {
+            return registry.getOrDefault(serviceId, List.of());
+        }
+
+        @Override
+        public List<String> getServices() {
+            return List.copyOf(registry.keySet());
+        }
+    }
+}
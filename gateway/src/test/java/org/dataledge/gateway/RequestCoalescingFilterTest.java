@@ -0,0 +1,111 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.CoalescingProperties;
+import org.dataledge.gateway.filter.RequestCoalescingFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The stub upstream answers only when the test releases it, so later requests arrive while the first is in flight.
+ */
+public class RequestCoalescingFilterTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private Sinks.Empty<Void> release;
+    private SimpleMeterRegistry meterRegistry;
+
+    private final GatewayFilterChain upstream = exchange -> {
+        int call = upstreamCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        return release.asMono().then(Mono.defer(() -> {
+            response.setStatusCode(HttpStatus.OK);
+            byte[] body = ("listing-" + call).getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    };
+
+    @BeforeEach
+    void setUp() {
+        release = Sinks.empty();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private GatewayFilter filter(DataSize maxBodySize) {
+        CoalescingProperties properties = new CoalescingProperties();
+        properties.setMaxBodySize(maxBodySize);
+        RequestCoalescingFilter.Config config = new RequestCoalescingFilter.Config();
+        config.setRouteId("datasources");
+        return new RequestCoalescingFilter(properties, meterRegistry).apply(config);
+    }
+
+    private List<MockServerWebExchange> sendConcurrently(GatewayFilter filter, String... userIds) {
+        List<MockServerWebExchange> exchanges = IntStream.range(0, userIds.length)
+                .mapToObj(i -> MockServerWebExchange.from(MockServerHttpRequest
+                        .get("/datasources?page=0")
+                        .header(DataLedgeUtil.USER_ID_HEADER, userIds[i])))
+                .toList();
+        List<Mono<Void>> pending = exchanges.stream()
+                .map(exchange -> filter.filter(exchange, upstream).cache())
+                .toList();
+        pending.forEach(Mono::subscribe);
+
+        release.tryEmitEmpty();
+        pending.forEach(Mono::block);
+        return exchanges;
+    }
+
+    @Test
+    void identicalRequestsShareOneUpstreamCall() {
+        List<MockServerWebExchange> exchanges = sendConcurrently(filter(DataSize.ofKilobytes(1)), "7", "7", "7", "8");
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(exchanges).extracting(e -> e.getResponse().getBodyAsString().block())
+                .containsExactly("listing-1", "listing-1", "listing-1", "listing-2");
+        assertThat(exchanges.get(1).getResponse().getHeaders().getFirst(RequestCoalescingFilter.COALESCED_HEADER))
+                .isEqualTo("true");
+        assertThat(meterRegistry.counter("gateway.coalescing.requests", "route", "datasources", "role", "collapsed")
+                .count()).isEqualTo(2);
+    }
+
+    @Test
+    void responsesOverTheCapAreNotShared() {
+        List<MockServerWebExchange> exchanges = sendConcurrently(filter(DataSize.ofBytes(4)), "7", "7");
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(exchanges).extracting(e -> e.getResponse().getBodyAsString().block())
+                .containsExactly("listing-1", "listing-2");
+        // The waiter went upstream after all, it is not reported as collapsed
+        assertThat(meterRegistry.counter("gateway.coalescing.requests", "route", "datasources", "role", "collapsed")
+                .count()).isZero();
+        assertThat(meterRegistry.counter("gateway.coalescing.requests", "route", "datasources", "role", "fallback")
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void laterRequestsStartANewFlight() {
+        GatewayFilter filter = filter(DataSize.ofKilobytes(1));
+        sendConcurrently(filter, "7");
+        release = Sinks.empty();
+        sendConcurrently(filter, "7");
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+}
@@ -0,0 +1,223 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.ResponseCacheProperties;
+import org.dataledge.gateway.filter.ResponseCacheFilter;
+import org.dataledge.gateway.filter.cache.ResponseCacheStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the cache filter against a stub upstream on a manual clock.
+ */
+public class ResponseCacheFilterTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final List<HttpHeaders> upstreamRequests = new ArrayList<>();
+    private String upstreamCacheControl;
+    private String upstreamEtag;
+    private ResponseCacheStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ResponseCacheStore("test", 1024 * 1024, clock, new SimpleMeterRegistry());
+    }
+
+    private GatewayFilter filter(ResponseCacheFilter.Scope scope) {
+        ResponseCacheFilter factory = new ResponseCacheFilter(
+                store, new ResponseCacheProperties(), new SimpleMeterRegistry());
+        ResponseCacheFilter.Config config = new ResponseCacheFilter.Config();
+        config.setTtl(Duration.ofSeconds(10));
+        config.setStaleWhileRevalidate(Duration.ofSeconds(20));
+        config.setScope(scope);
+        config.setRouteId("types");
+        return factory.apply(config);
+    }
+
+    private final GatewayFilterChain upstream = exchange -> {
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        upstreamRequests.add(requestHeaders);
+        ServerHttpResponse response = exchange.getResponse();
+
+        if (upstreamEtag != null && upstreamEtag.equals(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (upstreamCacheControl != null) {
+            response.getHeaders().set(HttpHeaders.CACHE_CONTROL, upstreamCacheControl);
+        }
+        if (upstreamEtag != null) {
+            response.getHeaders().setETag(upstreamEtag);
+        }
+        byte[] body = ("v" + upstreamRequests.size()).getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    };
+
+    private MockServerWebExchange send(GatewayFilter filter, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    private MockServerWebExchange get(GatewayFilter filter, String userId) {
+        return send(filter, MockServerHttpRequest.get("/datasource-types").header(DataLedgeUtil.USER_ID_HEADER, userId));
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().block();
+    }
+
+    private static String cacheStatus(MockServerWebExchange exchange) {
+        return exchange.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER);
+    }
+
+    @Test
+    void servesFreshHitsAndAnswersConditionalRequests() {
+        GatewayFilter filter = filter(ResponseCacheFilter.Scope.ROUTE);
+
+        MockServerWebExchange miss = get(filter, "1");
+        MockServerWebExchange hit = get(filter, "2");
+
+        assertThat(cacheStatus(miss)).isEqualTo("MISS");
+        assertThat(cacheStatus(hit)).isEqualTo("HIT");
+        assertThat(body(hit)).isEqualTo("v1");
+        assertThat(upstreamRequests).hasSize(1);
+
+        String etag = hit.getResponse().getHeaders().getETag();
+        MockServerWebExchange notModified = send(filter, MockServerHttpRequest.get("/datasource-types")
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertThat(notModified.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(upstreamRequests).hasSize(1);
+    }
+
+    @Test
+    void servesStaleWhileRevalidatingWithUpstreamEtag() {
+        upstreamEtag = "\"types-1\"";
+        GatewayFilter filter = filter(ResponseCacheFilter.Scope.ROUTE);
+        get(filter, "1");
+
+        clock.advance(Duration.ofSeconds(15));
+        MockServerWebExchange stale = get(filter, "1");
+
+        assertThat(cacheStatus(stale)).isEqualTo("STALE");
+        assertThat(body(stale)).isEqualTo("v1");
+        assertThat(upstreamRequests).hasSize(2);
+        assertThat(upstreamRequests.get(1).getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo("\"types-1\"");
+
+        // The 304 made the entry fresh again
+        assertThat(cacheStatus(get(filter, "1"))).isEqualTo("HIT");
+
+        clock.advance(Duration.ofSeconds(60));
+        assertThat(cacheStatus(get(filter, "1"))).isEqualTo("MISS");
+    }
+
+    @Test
+    void revalidationLeavesTheClientExchangeAttributesAlone() {
+        GatewayFilter filter = filter(ResponseCacheFilter.Scope.ROUTE);
+        get(filter, "1");
+        clock.advance(Duration.ofSeconds(15));
+
+        // Stands in for the routing filters, which record their state in the exchange attributes
+        GatewayFilterChain routing = exchange -> {
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ALREADY_ROUTED_ATTR, true);
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                    URI.create("http://10.0.0.1:8080/datasource-types"));
+            return upstream.filter(exchange);
+        };
+        MockServerWebExchange stale = MockServerWebExchange.from(MockServerHttpRequest.get("/datasource-types"));
+        Map<String, Object> before = Map.copyOf(stale.getAttributes());
+        filter.filter(stale, routing).block();
+
+        assertThat(cacheStatus(stale)).isEqualTo("STALE");
+        assertThat(upstreamRequests).hasSize(2);
+        assertThat(stale.getAttributes()).isEqualTo(before);
+    }
+
+    @Test
+    void respectsUpstreamCacheControl() {
+        GatewayFilter filter = filter(ResponseCacheFilter.Scope.ROUTE);
+
+        upstreamCacheControl = "no-store";
+        get(filter, "1");
+        assertThat(cacheStatus(get(filter, "1"))).isEqualTo("MISS");
+
+        upstreamCacheControl = "max-age=60, stale-while-revalidate=0";
+        get(filter, "1");
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(cacheStatus(get(filter, "1"))).isEqualTo("HIT");
+        clock.advance(Duration.ofSeconds(31));
+        assertThat(cacheStatus(get(filter, "1"))).isEqualTo("MISS");
+    }
+
+    @Test
+    void userScopeSeparatesUsersAndWritesInvalidate() {
+        GatewayFilter filter = filter(ResponseCacheFilter.Scope.USER);
+
+        get(filter, "1");
+        assertThat(cacheStatus(get(filter, "2"))).isEqualTo("MISS");
+        assertThat(cacheStatus(get(filter, "1"))).isEqualTo("HIT");
+
+        send(filter, MockServerHttpRequest.method(HttpMethod.POST, "/datasource-types")
+                .header(DataLedgeUtil.USER_ID_HEADER, "1"));
+
+        assertThat(cacheStatus(get(filter, "1"))).isEqualTo("MISS");
+        assertThat(cacheStatus(get(filter, "2"))).isEqualTo("HIT");
+    }
+
+    @Test
+    void runsBeforeTheUpstreamBodyIsWritten() {
+        // Else the body would be written past the capture and never cached
+        assertThat(filter(ResponseCacheFilter.Scope.ROUTE)).isInstanceOfSatisfying(Ordered.class, ordered ->
+                assertThat(ordered.getOrder()).isLessThan(NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER));
+    }
+
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
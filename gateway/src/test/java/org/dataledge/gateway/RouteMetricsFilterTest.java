@@ -0,0 +1,85 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.gateway.filter.RouteMetricsFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RouteMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RouteMetricsFilter filter = new RouteMetricsFilter(meterRegistry);
+
+    private static MockServerWebExchange routedTo(String routeId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/datasources"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id(routeId)
+                .uri(URI.create("lb://DATASOURCE-SERVICE"))
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+
+    @Test
+    void requestIsCountedInFlightAndTimedByRouteAndOutcome() {
+        AtomicReference<Double> inFlightDuringRequest = new AtomicReference<>();
+        GatewayFilterChain upstream = exchange -> {
+            inFlightDuringRequest.set(meterRegistry.get("gateway.requests.in.flight").gauge().value());
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return Mono.empty();
+        };
+
+        filter.filter(routedTo("datasource-service-main"), upstream).block();
+
+        assertThat(inFlightDuringRequest).hasValue(1.0);
+        assertThat(meterRegistry.get("gateway.requests.in.flight").gauge().value()).isZero();
+        assertThat(meterRegistry.get("gateway.route.in.flight").tag("route", "datasource-service-main")
+                .gauge().value()).isZero();
+        assertThat(meterRegistry.get("gateway.route.latency")
+                .tag("route", "datasource-service-main").tag("outcome", "5xx")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.requests.busy.seconds").functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void busyTimeGrowsWhileRequestsAreRunning() {
+        // A registry of its own, the meters of the filter above are registered already
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AtomicLong nanoTime = new AtomicLong();
+        RouteMetricsFilter clocked = new RouteMetricsFilter(registry, nanoTime::get);
+        Sinks.Empty<Void> first = Sinks.empty();
+        Sinks.Empty<Void> second = Sinks.empty();
+
+        clocked.filter(routedTo("datasource-service-main"), exchange -> first.asMono()).subscribe();
+        nanoTime.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertThat(busySeconds(registry)).isEqualTo(2.0);
+
+        clocked.filter(routedTo("datasource-service-main"), exchange -> second.asMono()).subscribe();
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(busySeconds(registry)).isEqualTo(4.0);
+
+        first.tryEmitEmpty();
+        second.tryEmitEmpty();
+        nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(busySeconds(registry)).isEqualTo(4.0);
+        assertThat(registry.get("gateway.requests.in.flight").gauge().value()).isZero();
+    }
+
+    private static double busySeconds(SimpleMeterRegistry registry) {
+        return registry.get("gateway.requests.busy.seconds").functionCounter().count();
+    }
+}
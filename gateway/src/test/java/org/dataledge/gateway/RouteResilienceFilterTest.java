@@ -0,0 +1,128 @@
+package org.dataledge.gateway;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.ResilienceProperties;
+import org.dataledge.gateway.filter.RouteResilienceFilter;
+import org.dataledge.gateway.filter.cache.ReplayableHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RouteResilienceFilterTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private CircuitBreakerRegistry circuitBreakers;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofSeconds(30))
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        RouteResilienceFilter.Config config = new RouteResilienceFilter.Config();
+        config.setRouteId("datasources");
+        config.setCircuitBreaker("datasourceService");
+        config.setBulkhead("datasourceService");
+        filter = new RouteResilienceFilter(circuitBreakers, bulkheads, new ResilienceProperties(),
+                new SimpleMeterRegistry()).apply(config);
+    }
+
+    private GatewayFilterChain answering(HttpStatus status) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(status);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap("listing".getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    private final GatewayFilterChain timingOut = exchange -> {
+        upstreamCalls.incrementAndGet();
+        return Mono.error(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Response took longer than timeout"));
+    };
+
+    private MockServerWebExchange get(String userId) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/datasources")
+                .header(DataLedgeUtil.USER_ID_HEADER, userId));
+    }
+
+    @Test
+    void failedGetIsAnsweredWithLastGoodResponse() {
+        filter.filter(get("7"), answering(HttpStatus.OK)).block();
+
+        MockServerWebExchange fallback = get("7");
+        filter.filter(fallback, timingOut).block();
+
+        assertThat(fallback.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(fallback.getResponse().getBodyAsString().block()).isEqualTo("listing");
+        assertThat(fallback.getResponse().getHeaders().getFirst(ReplayableHeaders.CACHE_STATUS_HEADER))
+                .isEqualTo("FALLBACK");
+
+        // Another user never sees it
+        assertThatThrownBy(() -> filter.filter(get("8"), timingOut).block())
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void serverErrorsOpenTheBreaker() {
+        for (int i = 0; i < 4; i++) {
+            filter.filter(get("7"), answering(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+        }
+        assertThat(circuitBreakers.circuitBreaker("datasourceService").getState())
+                .isEqualTo(CircuitBreaker.State.OPEN);
+
+        MockServerWebExchange rejected = get("7");
+        filter.filter(rejected, answering(HttpStatus.OK)).block();
+
+        assertThat(upstreamCalls).hasValue(4);
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+    }
+
+    @Test
+    void fullBulkheadRejectsImmediately() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        Mono<Void> first = filter.filter(get("7"), exchange -> release.asMono()).cache();
+        first.subscribe();
+
+        MockServerWebExchange rejected = get("8");
+        filter.filter(rejected, answering(HttpStatus.OK)).block();
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        release.tryEmitEmpty();
+        first.block();
+        MockServerWebExchange admitted = get("8");
+        filter.filter(admitted, answering(HttpStatus.OK)).block();
+        assertThat(admitted.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
@@ -0,0 +1,124 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.gateway.filter.StreamingUploadFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bodies are generated lazily from one shared chunk, the surefire heap is far smaller than the largest of them.
+ */
+public class StreamingUploadFilterTest {
+
+    private static final int CHUNK = 256 * 1024;
+    private static final byte[] CHUNK_BYTES = new byte[CHUNK];
+    // Requested by the stub upstream at a time, like a socket that only takes what it can write
+    private static final int UPSTREAM_DEMAND = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong produced = new AtomicLong();
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong maxInTransit = new AtomicLong();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private final GatewayFilterChain upstream = exchange -> {
+        upstreamCalls.incrementAndGet();
+        return exchange.getRequest().getBody()
+                .limitRate(UPSTREAM_DEMAND)
+                .doOnNext(buffer -> {
+                    long inTransit = produced.get() - forwarded.get() * CHUNK;
+                    maxInTransit.accumulateAndGet(inTransit, Math::max);
+                    forwarded.incrementAndGet();
+                    DataBufferUtils.release(buffer);
+                })
+                .then(Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.CREATED)));
+    };
+
+    private GatewayFilter filter(DataSize maxSize) {
+        StreamingUploadFilter.Config config = new StreamingUploadFilter.Config();
+        config.setRouteId("blob-upload");
+        config.setMaxSize(maxSize);
+        return new StreamingUploadFilter(meterRegistry).apply(config);
+    }
+
+    private Flux<DataBuffer> body(DataSize size) {
+        long chunks = size.toBytes() / CHUNK;
+        return Flux.<DataBuffer, Long>generate(() -> 0L, (sent, sink) -> {
+            if (sent == chunks) {
+                sink.complete();
+            } else {
+                produced.addAndGet(CHUNK);
+                sink.next(DefaultDataBufferFactory.sharedInstance.wrap(CHUNK_BYTES));
+            }
+            return sent + 1;
+        });
+    }
+
+    private double bytes(String direction) {
+        return meterRegistry.get("gateway.upload.bytes").tag("direction", direction).counter().count();
+    }
+
+    @Test
+    void multiGigabyteBodyStreamsAtUpstreamPace() {
+        DataSize size = DataSize.ofGigabytes(4);
+        assertThat(size.toBytes()).isGreaterThan(Runtime.getRuntime().maxMemory());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .post("/blob/writeBlobFile")
+                .body(body(size)));
+
+        filter(DataSize.ofGigabytes(5)).filter(exchange, upstream).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(forwarded.get() * CHUNK).isEqualTo(size.toBytes());
+        // Never more read from the client than upstream asked for
+        assertThat(maxInTransit.get()).isLessThanOrEqualTo((long) UPSTREAM_DEMAND * CHUNK);
+        assertThat(bytes("in")).isEqualTo(size.toBytes());
+        assertThat(bytes("upstream")).isEqualTo(size.toBytes());
+    }
+
+    @Test
+    void declaredLengthOverLimitIsRefusedUnread() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .post("/blob/writeBlobFile")
+                .contentLength(DataSize.ofGigabytes(3).toBytes())
+                .body(body(DataSize.ofGigabytes(3))));
+
+        filter(DataSize.ofGigabytes(2)).filter(exchange, upstream).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(upstreamCalls).hasValue(0);
+        assertThat(produced).hasValue(0);
+    }
+
+    @Test
+    void chunkedBodyIsCutOffOnceOverLimit() {
+        DataSize limit = DataSize.ofMegabytes(64);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .post("/blob/writeBlobFile")
+                .body(body(DataSize.ofGigabytes(3))));
+
+        assertThatThrownBy(() -> filter(limit).filter(exchange, upstream).block())
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+
+        assertThat(bytes("upstream")).isEqualTo(limit.toBytes());
+        assertThat(produced.get()).isLessThanOrEqualTo(limit.toBytes() + (long) UPSTREAM_DEMAND * CHUNK);
+    }
+}
@@ -0,0 +1,62 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.gateway.filter.UpstreamMetricsFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UpstreamMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ticker = new AtomicLong();
+    private final UpstreamMetricsFilter filter = new UpstreamMetricsFilter(meterRegistry, ticker::get);
+
+    private void forwardTo(String instance) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/datasources"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("datasource-service-main")
+                .uri(URI.create("lb://DATASOURCE-SERVICE"))
+                .predicate(e -> true)
+                .build());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://" + instance + "/datasources"));
+        filter.filter(exchange, e -> Mono.empty()).block();
+    }
+
+    private long recorded(String instance) {
+        return meterRegistry.find("gateway.upstream.latency").tag("instance", instance).timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+    }
+
+    @Test
+    void timersOfInstancesNoLongerCalledAreRemoved() {
+        forwardTo("10.0.0.1:8080");
+        forwardTo("10.0.0.2:8080");
+        ticker.addAndGet(UpstreamMetricsFilter.IDLE_EXPIRY.minusMinutes(1).toNanos());
+        forwardTo("10.0.0.2:8080");
+
+        assertThat(recorded("10.0.0.1:8080")).isEqualTo(1);
+        assertThat(recorded("10.0.0.2:8080")).isEqualTo(2);
+
+        // The first instance was replaced, the second is still called
+        ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+        forwardTo("10.0.0.2:8080");
+        forwardTo("10.0.0.3:8080");
+
+        assertThat(meterRegistry.find("gateway.upstream.latency").tag("instance", "10.0.0.1:8080").timers())
+                .isEmpty();
+        assertThat(recorded("10.0.0.2:8080")).isEqualTo(3);
+        assertThat(recorded("10.0.0.3:8080")).isEqualTo(1);
+    }
+}
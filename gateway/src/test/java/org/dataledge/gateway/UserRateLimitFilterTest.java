@@ -0,0 +1,111 @@
+package org.dataledge.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.OpenEndpointsProperties;
+import org.dataledge.gateway.filter.RouteValidator;
+import org.dataledge.gateway.filter.UserRateLimitFilter;
+import org.dataledge.gateway.ratelimit.InMemoryRateLimiterBackend;
+import org.dataledge.gateway.ratelimit.RateLimiterBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the filter with the in-memory backend on a manual clock. The Redis backend shared by several gateway
+ * instances is run against a real Redis in {@code RedisRateLimiterBackendIT}.
+ */
+public class UserRateLimitFilterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(1_000));
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryRateLimiterBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        backend = new InMemoryRateLimiterBackend(1_000, Duration.ofMinutes(1), clock::get);
+    }
+
+    private GatewayFilter filter(RateLimiterBackend backend, int capacity, double refillPerSecond) {
+        UserRateLimitFilter factory = new UserRateLimitFilter(
+                backend, new RouteValidator(new OpenEndpointsProperties()), meterRegistry);
+        UserRateLimitFilter.Config config = new UserRateLimitFilter.Config();
+        config.setCapacity(capacity);
+        config.setRefillPerSecond(refillPerSecond);
+        config.setRouteId("blob");
+        return factory.apply(config);
+    }
+
+    private MockServerWebExchange send(GatewayFilter filter, String userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .post("/blob/saveApiContent")
+                .header(DataLedgeUtil.USER_ID_HEADER, userId));
+        filter.filter(exchange, e -> {
+            forwarded.incrementAndGet();
+            return Mono.empty();
+        }).block();
+        return exchange;
+    }
+
+    @Test
+    void rejectsBeyondBurstWithRetryAfterAndRefills() {
+        GatewayFilter filter = filter(backend, 3, 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(send(filter, "7").getResponse().getStatusCode()).isNull();
+        }
+        MockServerWebExchange rejected = send(filter, "7");
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getResponse().getHeaders().getFirst(UserRateLimitFilter.REMAINING_HEADER)).isEqualTo("0");
+        assertThat(forwarded).hasValue(3);
+
+        // Two tokens per second, half a second brings one back
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(send(filter, "7").getResponse().getStatusCode()).isNull();
+        assertThat(send(filter, "7").getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        assertThat(meterRegistry.counter("gateway.ratelimit.requests", "route", "blob", "result", "allowed").count())
+                .isEqualTo(4);
+        assertThat(meterRegistry.counter("gateway.ratelimit.requests", "route", "blob", "result", "rejected").count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void usersHaveSeparateBucketsSharedAcrossInstances() {
+        GatewayFilter instanceA = filter(backend, 2, 1);
+        GatewayFilter instanceB = filter(backend, 2, 1);
+
+        send(instanceA, "7");
+        send(instanceB, "7");
+        assertThat(send(instanceA, "7").getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(send(instanceB, "8").getResponse().getStatusCode()).isNull();
+        assertThat(forwarded).hasValue(3);
+    }
+
+    @Test
+    void failsOpenWhenBackendIsDown() {
+        GatewayFilter filter = filter((key, policy) -> Mono.error(new IllegalStateException("down")), 1, 1);
+
+        assertThat(send(filter, "7").getResponse().getStatusCode()).isNull();
+        assertThat(send(filter, "7").getResponse().getStatusCode()).isNull();
+        assertThat(forwarded).hasValue(2);
+        assertThat(meterRegistry.counter("gateway.ratelimit.requests", "route", "blob", "result", "error").count())
+                .isEqualTo(2);
+    }
+}
@@ -0,0 +1,91 @@
+package org.dataledge.gateway.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataledge.gateway.config.JwtKeyProperties;
+import org.dataledge.gateway.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of token validation in the authentication filter.
+ * <ul>
+ *     <li>{@code legacyDoubleParse}: previous filter path, key decoded and parser built twice, token parsed twice</li>
+ *     <li>{@code singleParse}: precomputed key and parser, one parse</li>
+ *     <li>{@code cachedResolve}: repeat request for an already verified token</li>
+ * </ul>
+ * Run with {@code mvn -pl gateway test-compile} and the test classpath, main class {@code org.openjdk.jmh.Main},
+ * or through {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtValidationBenchmark {
+
+    private String secret;
+    private String token;
+    private JwtUtil jwtUtil;
+
+    @Setup
+    public void setUp() {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        secret = Base64.getEncoder().encodeToString(keyBytes);
+
+        SecretKey key = Keys.hmacShaKeyFor(keyBytes);
+        token = Jwts.builder()
+                .claims(Map.of("userId", "42"))
+                .subject("user@dataledge.org")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+
+        jwtUtil = new JwtUtil(secret, 10_000, new JwtKeyProperties(),
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        jwtUtil.resolve(token);
+    }
+
+    @Benchmark
+    public String legacyDoubleParse() {
+        Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload();
+        return claims.get("userId", String.class);
+    }
+
+    @Benchmark
+    public String singleParse() {
+        return jwtUtil.verify(token).userId();
+    }
+
+    @Benchmark
+    public String cachedResolve() {
+        return jwtUtil.resolve(token).userId();
+    }
+
+    private SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,125 @@
+package org.dataledge.gateway.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost against bytes saved of the gateway's response compression, the same Netty compressor
+ * {@code server.compression} installs, fed 8 KB chunks the way proxied bodies arrive.
+ * <ul>
+ *     <li>{@code list}: a page of 200 datasources as JSON, about 36 KB</li>
+ *     <li>{@code ndjson}: an export of 2000 rows, about 365 KB</li>
+ * </ul>
+ * {@code encoding} is the client's Accept-Encoding, {@code identity} is the cost of passing the body through.
+ * The size on the wire is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseCompressionBenchmark {
+
+    private static final int CHUNK = 8 * 1024;
+
+    @Param({"list", "ndjson"})
+    public String payload;
+
+    @Param({"identity", "gzip", "zstd"})
+    public String encoding;
+
+    private byte[] body;
+    private long wireBytes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        if ("list".equals(payload)) {
+            text.append("{\"items\":[");
+            for (int i = 0; i < 200; i++) {
+                if (i > 0) {
+                    text.append(',');
+                }
+                datasource(text, i);
+            }
+            text.append("],\"pageNumber\":0,\"pageSize\":200,\"totalItems\":1873}");
+        } else {
+            for (int i = 0; i < 2000; i++) {
+                datasource(text, i);
+                text.append('\n');
+            }
+        }
+        body = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void datasource(StringBuilder text, int i) {
+        text.append("{\"id\":").append(100_000 + i)
+                .append(",\"name\":\"Sales export ").append(i % 37)
+                .append("\",\"type\":\"").append(i % 3 == 0 ? "API" : "CSV")
+                .append("\",\"url\":\"https://api.example.com/v2/reports/").append(i * 7919 % 100_003)
+                .append("?format=json\",\"createdAt\":\"2025-0").append(1 + i % 9).append("-1").append(i % 10)
+                .append("T12:").append(10 + i % 50).append(":00Z\",\"fileCount\":").append(i % 41)
+                .append(",\"sizeBytes\":").append((long) i * 104_729 % 9_999_991).append('}');
+    }
+
+    @Benchmark
+    public long compress() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpContentCompressor());
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/datasources");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, encoding);
+        channel.writeInbound(request);
+        channel.readInbound();
+
+        DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+        response.headers().set(HttpHeaderNames.TRANSFER_ENCODING, "chunked");
+        channel.write(response);
+        for (int offset = 0; offset < body.length; offset += CHUNK) {
+            ByteBuf chunk = Unpooled.wrappedBuffer(body, offset, Math.min(CHUNK, body.length - offset));
+            channel.write(new DefaultHttpContent(chunk));
+        }
+        channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        long bytes = 0;
+        Object out;
+        while ((out = channel.readOutbound()) != null) {
+            if (out instanceof HttpContent content) {
+                bytes += content.content().readableBytes();
+            }
+            ReferenceCountUtil.release(out);
+        }
+        channel.finishAndReleaseAll();
+        wireBytes = bytes;
+        return bytes;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.printf("%n%s with %s: %d bytes on the wire for %d, %.1f%%%n",
+                payload, encoding, wireBytes, body.length, 100.0 * wireBytes / body.length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ResponseCompressionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
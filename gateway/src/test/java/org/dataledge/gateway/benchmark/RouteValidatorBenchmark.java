@@ -0,0 +1,88 @@
+package org.dataledge.gateway.benchmark;
+
+import org.dataledge.gateway.config.OpenEndpointsProperties;
+import org.dataledge.gateway.config.OpenEndpointsProperties.OpenEndpoint;
+import org.dataledge.gateway.filter.RouteValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of deciding whether a path needs a token.
+ * <ul>
+ *     <li>{@code legacyStream}: previous validator, stream over the list comparing raw URI paths</li>
+ *     <li>{@code pathPatternSet}: Spring {@link PathPattern}s checked one by one</li>
+ *     <li>{@code trie}: the compiled {@link RouteValidator}</li>
+ * </ul>
+ * Run with {@code -prof gc} to confirm the trie allocates nothing per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteValidatorBenchmark {
+
+    private static final List<String> LEGACY_OPEN = List.of("/auth/register", "/auth/authenticate", "/eureka");
+
+    @Param({"/datasources/42/snapshots", "/auth/authenticate", "/eureka/apps/DATASOURCE-SERVICE"})
+    public String path;
+
+    private String rawPath;
+    private PathContainer parsedPath;
+    private List<PathPattern> pathPatterns;
+    private RouteValidator validator;
+
+    @Setup
+    public void setUp() {
+        OpenEndpointsProperties properties = new OpenEndpointsProperties();
+        properties.setOpenEndpoints(List.of(
+                new OpenEndpoint("/auth/register", List.of("POST")),
+                new OpenEndpoint("/auth/authenticate", List.of("POST")),
+                new OpenEndpoint("/eureka/**", List.of())
+        ));
+        validator = new RouteValidator(properties);
+        pathPatterns = properties.getOpenEndpoints().stream()
+                .map(endpoint -> PathPatternParser.defaultInstance.parse(endpoint.getPattern()))
+                .toList();
+
+        rawPath = path;
+        // The request already carries its parsed path, so parsing is not part of the per-request cost
+        parsedPath = PathContainer.parsePath(path);
+    }
+
+    @Benchmark
+    public boolean legacyStream() {
+        return LEGACY_OPEN.stream().noneMatch(rawPath::equals);
+    }
+
+    @Benchmark
+    public boolean pathPatternSet() {
+        for (PathPattern pattern : pathPatterns) {
+            if (pattern.matches(parsedPath)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean trie() {
+        return !validator.isOpen(parsedPath, HttpMethod.POST);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RouteValidatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package org.dataledge.gateway.integration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.common.DataLedgeUtil;
+import org.dataledge.gateway.config.OpenEndpointsProperties;
+import org.dataledge.gateway.filter.RouteValidator;
+import org.dataledge.gateway.filter.UserRateLimitFilter;
+import org.dataledge.gateway.ratelimit.RateLimitDecision;
+import org.dataledge.gateway.ratelimit.RateLimitPolicy;
+import org.dataledge.gateway.ratelimit.RedisRateLimiterBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.testcontainers.containers.GenericContainer;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the rate limit script in a real Redis. Two filters, each with its own backend and connection, stand in for
+ * two gateway instances sharing the budget.
+ */
+class RedisRateLimiterBackendIT {
+
+    // --- TEST CONTAINER SETUP ---
+    private static final GenericContainer<?> REDIS_CONTAINER = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    private static final String KEY_PREFIX = "it:ratelimit:";
+
+    private final List<LettuceConnectionFactory> connections = new ArrayList<>();
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startContainer() {
+        REDIS_CONTAINER.start();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        REDIS_CONTAINER.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        template().execute(connection -> connection.serverCommands().flushAll()).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connections.forEach(LettuceConnectionFactory::destroy);
+    }
+
+    /**
+     * A connection of its own, like a separate gateway instance would have.
+     */
+    private ReactiveStringRedisTemplate template() {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                REDIS_CONTAINER.getHost(), REDIS_CONTAINER.getMappedPort(6379));
+        factory.afterPropertiesSet();
+        factory.start();
+        connections.add(factory);
+        return new ReactiveStringRedisTemplate(factory);
+    }
+
+    private GatewayFilter gatewayInstance(int capacity, double refillPerSecond) {
+        UserRateLimitFilter factory = new UserRateLimitFilter(new RedisRateLimiterBackend(template(), KEY_PREFIX),
+                new RouteValidator(new OpenEndpointsProperties()), meterRegistry);
+        UserRateLimitFilter.Config config = new UserRateLimitFilter.Config();
+        config.setCapacity(capacity);
+        config.setRefillPerSecond(refillPerSecond);
+        config.setRouteId("blob");
+        return factory.apply(config);
+    }
+
+    private MockServerWebExchange send(GatewayFilter filter, String userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .post("/blob/saveApiContent")
+                .header(DataLedgeUtil.USER_ID_HEADER, userId));
+        filter.filter(exchange, e -> {
+            forwarded.incrementAndGet();
+            return Mono.empty();
+        }).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    @Test
+    void gatewayInstancesShareOneBudgetPerUser() {
+        GatewayFilter instanceA = gatewayInstance(2, 0.5);
+        GatewayFilter instanceB = gatewayInstance(2, 0.5);
+
+        MockServerWebExchange first = send(instanceA, "7");
+        MockServerWebExchange second = send(instanceB, "7");
+        MockServerWebExchange rejected = send(instanceA, "7");
+
+        assertThat(first.getResponse().getStatusCode()).isNull();
+        assertThat(first.getResponse().getHeaders().getFirst(UserRateLimitFilter.REMAINING_HEADER)).isEqualTo("1");
+        assertThat(second.getResponse().getStatusCode()).isNull();
+        assertThat(second.getResponse().getHeaders().getFirst(UserRateLimitFilter.REMAINING_HEADER)).isEqualTo("0");
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        // Half a token per second, the next one is about two seconds away
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+
+        assertThat(send(instanceB, "8").getResponse().getStatusCode()).isNull();
+        assertThat(forwarded).hasValue(3);
+        assertThat(meterRegistry.counter("gateway.ratelimit.requests", "route", "blob", "result", "rejected").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void decodesTheScriptResultAndExpiresIdleBuckets() {
+        ReactiveStringRedisTemplate redis = template();
+        RedisRateLimiterBackend backend = new RedisRateLimiterBackend(redis, KEY_PREFIX);
+        RateLimitPolicy policy = new RateLimitPolicy(3, 1, 1);
+
+        RateLimitDecision allowed = backend.tryAcquire("blob:7", policy).block(Duration.ofSeconds(5));
+        backend.tryAcquire("blob:7", policy).block(Duration.ofSeconds(5));
+        backend.tryAcquire("blob:7", policy).block(Duration.ofSeconds(5));
+        RateLimitDecision rejected = backend.tryAcquire("blob:7", policy).block(Duration.ofSeconds(5));
+
+        assertThat(allowed.allowed()).isTrue();
+        assertThat(allowed.remaining()).isEqualTo(2);
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remaining()).isZero();
+        assertThat(rejected.retryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1));
+
+        // The bucket lives no longer than it takes to refill completely
+        Duration ttl = redis.getExpire(KEY_PREFIX + "blob:7").block(Duration.ofSeconds(5));
+        assertThat(ttl).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(3));
+    }
+}
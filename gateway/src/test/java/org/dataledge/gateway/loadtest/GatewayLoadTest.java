@@ -0,0 +1,235 @@
+package org.dataledge.gateway.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.dataledge.gateway.filter.AuthenticationFilter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and latency of the gateway's route chain against WireMock stand-ins for DATASOURCE-SERVICE and
+ * IDENTITY-SERVICE, found through a static service list instead of Eureka. Excluded from the normal build:
+ * <pre>
+ * mvn -pl common-utils,gateway -am test -Ploadtest
+ * mvn -pl common-utils,gateway -am test -Ploadtest -Dloadtest.concurrency=128 -Dloadtest.duration=PT60S
+ * </pre>
+ * Each scenario prints RPS and p50/p99/p99.9 and writes them to {@code loadtest.output} as
+ * {@code <commit>-<scenario>.json}. Stub answers, users and token claims come from a fixed seed,
+ * so runs on the same machine with the same settings are comparable across commits.
+ * The warmup is long on purpose, on a machine with few cores the JIT needs it before numbers settle.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.rabbitmq.listener.simple.auto-startup=false",
+        "logging.level.org.dataledge=WARN"
+})
+public class GatewayLoadTest {
+
+    private static final Duration WARMUP = Duration.parse(System.getProperty("loadtest.warmup", "PT30S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 64);
+    // Enough users that the per-user rate limits stay out of the way
+    private static final int USERS = Integer.getInteger("loadtest.users", 2000);
+    private static final int UPSTREAM_DELAY_MILLIS = Integer.getInteger("loadtest.upstream-delay-millis", 5);
+    private static final Path OUTPUT = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+
+    private static final byte[] SECRET = new byte[32];
+    private static final WireMockServer datasourceService = stubServer();
+    private static final WireMockServer identityService = stubServer();
+
+    static {
+        new Random(42).nextBytes(SECRET);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private LoadGenerator generator;
+
+    @DynamicPropertySource
+    static void services(DynamicPropertyRegistry registry) {
+        datasourceService.start();
+        identityService.start();
+        stubServices();
+        registry.add("JWT_SECRET", () -> Base64.getEncoder().encodeToString(SECRET));
+        registry.add("spring.cloud.discovery.client.simple.instances[DATASOURCE-SERVICE][0].uri",
+                datasourceService::baseUrl);
+        registry.add("spring.cloud.discovery.client.simple.instances[IDENTITY-SERVICE][0].uri",
+                identityService::baseUrl);
+    }
+
+    private static WireMockServer stubServer() {
+        // No request journal, it would grow with every request of the run
+        return new WireMockServer(options()
+                .dynamicPort()
+                .containerThreads(CONCURRENCY * 2)
+                .disableRequestJournal());
+    }
+
+    private static void stubServices() {
+        StringBuilder listing = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 10; i++) {
+            listing.append(i > 0 ? "," : "")
+                    .append("{\"id\":").append(i + 1)
+                    .append(",\"name\":\"Datasource ").append(i + 1)
+                    .append("\",\"type\":\"CSV\",\"url\":\"https://example.com/data/").append(i + 1)
+                    .append(".csv\",\"createdAt\":\"2025-01-01T12:00:00Z\"}");
+        }
+        listing.append("],\"pageNumber\":0,\"pageSize\":10,\"totalItems\":10}");
+
+        datasourceService.stubFor(get(urlPathEqualTo("/datasources")).willReturn(json(listing.toString())));
+        datasourceService.stubFor(get(urlPathEqualTo("/datasource-types"))
+                .willReturn(json("[{\"id\":1,\"name\":\"CSV\"},{\"id\":2,\"name\":\"API\"}]")));
+        datasourceService.stubFor(get(urlPathEqualTo("/blob/getFiles"))
+                .willReturn(json("{\"items\":[{\"name\":\"2025-01.csv\",\"size\":52341}],\"totalItems\":1}")));
+        identityService.stubFor(get(urlPathEqualTo("/auth/me"))
+                .willReturn(json("{\"id\":1,\"name\":\"Load Test\",\"email\":\"load@test.dev\"}")));
+    }
+
+    private static ResponseDefinitionBuilder json(String body) {
+        return aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withFixedDelay(UPSTREAM_DELAY_MILLIS)
+                .withBody(body);
+    }
+
+    @AfterAll
+    static void stopServices() {
+        datasourceService.stop();
+        identityService.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        generator = new LoadGenerator(port, CONCURRENCY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        generator.close();
+    }
+
+    @Test
+    void authenticatedListing() throws IOException {
+        run(new LoadGenerator.Scenario("authenticated-listing", "/datasources?pageNumber=0&pageSize=10",
+                cookies(), 200));
+    }
+
+    @Test
+    void dashboardAggregation() throws IOException {
+        run(new LoadGenerator.Scenario("dashboard-aggregation", "/bff/dashboard", cookies(), 200));
+    }
+
+    @Test
+    void rejectedWithoutToken() throws IOException {
+        run(new LoadGenerator.Scenario("rejected-without-token", "/datasources", List.of(), 401));
+    }
+
+    private void run(LoadGenerator.Scenario scenario) throws IOException {
+        LoadGenerator.Result result = generator.run(scenario, WARMUP, DURATION);
+        report(result);
+
+        assertThat(result.requests()).isPositive();
+        assertThat(result.unexpected()).as("answers other than %d", scenario.expectedStatus())
+                .isLessThanOrEqualTo(result.requests() / 100);
+    }
+
+    private static List<String> cookies() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET);
+        Instant issuedAt = Instant.now();
+        List<String> cookies = new ArrayList<>(USERS);
+        for (int user = 1; user <= USERS; user++) {
+            String token = Jwts.builder()
+                    .subject("user" + user + "@load.test")
+                    .claim("userId", Integer.toString(user))
+                    .id(new UUID(42, user).toString())
+                    .issuedAt(Date.from(issuedAt))
+                    .expiration(Date.from(issuedAt.plus(Duration.ofHours(1))))
+                    .signWith(key)
+                    .compact();
+            cookies.add(AuthenticationFilter.TOKEN_COOKIE + "=" + token);
+        }
+        return cookies;
+    }
+
+    private static void report(LoadGenerator.Result result) throws IOException {
+        String commit = commit();
+        System.out.printf("%n%-24s %s  concurrency %d  %d requests in %.1fs  %.0f rps"
+                        + "  p50 %.2fms  p99 %.2fms  p99.9 %.2fms  max %.2fms  unexpected %d%n",
+                result.scenario().name(), commit, result.concurrency(), result.requests(),
+                result.duration().toMillis() / 1000.0, result.requestsPerSecond(),
+                result.percentileMillis(50), result.percentileMillis(99), result.percentileMillis(99.9),
+                result.latencies().getMaxValue() / 1000.0, result.unexpected());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode json = objectMapper.createObjectNode()
+                .put("scenario", result.scenario().name())
+                .put("commit", commit)
+                .put("timestamp", Instant.now().toString())
+                .put("concurrency", result.concurrency())
+                .put("users", USERS)
+                .put("upstreamDelayMillis", UPSTREAM_DELAY_MILLIS)
+                .put("warmupSeconds", WARMUP.toSeconds())
+                .put("durationSeconds", result.duration().toMillis() / 1000.0)
+                .put("requests", result.requests())
+                .put("unexpected", result.unexpected())
+                .put("rps", result.requestsPerSecond())
+                .put("p50Millis", result.percentileMillis(50))
+                .put("p99Millis", result.percentileMillis(99))
+                .put("p999Millis", result.percentileMillis(99.9))
+                .put("maxMillis", result.latencies().getMaxValue() / 1000.0);
+        Files.createDirectories(OUTPUT);
+        objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValue(OUTPUT.resolve(commit + "-" + result.scenario().name() + ".json").toFile(), json);
+    }
+
+    private static String commit() {
+        String commit = System.getProperty("loadtest.commit");
+        if (commit != null) {
+            return commit;
+        }
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            String head = new String(git.getInputStream().readAllBytes(), StandardCharsets.US_ASCII).trim();
+            return git.waitFor(5, TimeUnit.SECONDS) && git.exitValue() == 0 && !head.isEmpty() ? head : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
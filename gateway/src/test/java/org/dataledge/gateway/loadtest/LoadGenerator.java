@@ -0,0 +1,100 @@
+package org.dataledge.gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load: {@code concurrency} connections, each sending its next request as soon as the last one
+ * is answered, first for the warmup, then for the measured duration. Latencies in microseconds.
+ * <p>
+ * A closed loop slows down with the gateway, so its percentiles are those of the requests it managed to send;
+ * compare runs at the same concurrency only.
+ */
+final class LoadGenerator {
+
+    /**
+     * @param path    request path with query
+     * @param cookies sent round robin, one per request, none when empty
+     */
+    record Scenario(String name, String path, List<String> cookies, int expectedStatus) {
+    }
+
+    record Result(Scenario scenario, int concurrency, Duration duration, long requests, long unexpected,
+                  Histogram latencies) {
+
+        double requestsPerSecond() {
+            return requests / (duration.toNanos() / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    private final HttpClient client;
+    private final int concurrency;
+    private final ConnectionProvider connections;
+
+    LoadGenerator(int port, int concurrency) {
+        this.concurrency = concurrency;
+        this.connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = HttpClient.create(connections)
+                .baseUrl("http://localhost:" + port);
+    }
+
+    Result run(Scenario scenario, Duration warmup, Duration duration) {
+        drive(scenario, warmup, new Recorder(3), new AtomicLong());
+
+        Recorder recorder = new Recorder(3);
+        AtomicLong unexpected = new AtomicLong();
+        long start = System.nanoTime();
+        drive(scenario, duration, recorder, unexpected);
+        Duration measured = Duration.ofNanos(System.nanoTime() - start);
+
+        Histogram latencies = recorder.getIntervalHistogram();
+        return new Result(scenario, concurrency, measured, latencies.getTotalCount(), unexpected.get(), latencies);
+    }
+
+    private void drive(Scenario scenario, Duration duration, Recorder recorder, AtomicLong unexpected) {
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicLong sequence = new AtomicLong();
+        Flux.range(0, concurrency)
+                .flatMap(worker -> Mono.defer(() -> send(scenario, sequence.getAndIncrement(), recorder, unexpected))
+                        .repeat(() -> System.nanoTime() < end), concurrency)
+                .blockLast();
+    }
+
+    private Mono<Integer> send(Scenario scenario, long sequence, Recorder recorder, AtomicLong unexpected) {
+        List<String> cookies = scenario.cookies();
+        HttpClient request = cookies.isEmpty() ? client : client.headers(headers ->
+                headers.set(HttpHeaderNames.COOKIE, cookies.get((int) (sequence % cookies.size()))));
+        long start = System.nanoTime();
+        return request.get()
+                .uri(scenario.path())
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .onErrorReturn(-1)
+                .doOnNext(status -> {
+                    recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    if (status != scenario.expectedStatus()) {
+                        unexpected.incrementAndGet();
+                    }
+                });
+    }
+
+    void close() {
+        connections.dispose();
+    }
+}
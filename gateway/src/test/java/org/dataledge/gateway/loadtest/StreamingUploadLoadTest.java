@@ -0,0 +1,191 @@
+package org.dataledge.gateway.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.dataledge.gateway.filter.AuthenticationFilter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A chunked upload far larger than the heap, sent through the booted gateway, Reactor Netty and
+ * {@code NettyRoutingFilter} included, to a sink standing in for DATASOURCE-SERVICE that counts and drops what it
+ * reads. Runs in the loadtest profile, in a JVM of its own with a small heap and direct memory limit:
+ * <pre>
+ * mvn -pl common-utils,gateway -am test -Ploadtest
+ * mvn -pl common-utils,gateway -am test -Ploadtest -Dloadtest.upload-size=1GB
+ * </pre>
+ * The default size stays under the 2GB {@code max-size} of the upload route. Peak heap and Netty direct memory
+ * are sampled while the body streams and printed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.rabbitmq.listener.simple.auto-startup=false",
+        "logging.level.org.dataledge=WARN"
+})
+public class StreamingUploadLoadTest {
+
+    private static final DataSize SIZE = DataSize.parse(System.getProperty("loadtest.upload-size", "1900MB"));
+    // Far above what a streamed upload holds at a time, far below what buffering it would take
+    private static final DataSize MAX_DIRECT_IN_USE = DataSize.ofMegabytes(64);
+
+    private static final byte[] SECRET = new byte[32];
+    private static final AtomicLong received = new AtomicLong();
+    private static final HttpServer datasourceService = sink();
+
+    static {
+        new Random(42).nextBytes(SECRET);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void services(DynamicPropertyRegistry registry) {
+        datasourceService.start();
+        registry.add("JWT_SECRET", () -> Base64.getEncoder().encodeToString(SECRET));
+        registry.add("spring.cloud.discovery.client.simple.instances[DATASOURCE-SERVICE][0].uri",
+                () -> "http://localhost:" + datasourceService.getAddress().getPort());
+    }
+
+    private static HttpServer sink() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/blob/writeBlobFile", StreamingUploadLoadTest::drain);
+            server.setExecutor(Executors.newFixedThreadPool(2));
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the upload sink", e);
+        }
+    }
+
+    private static void drain(HttpExchange exchange) throws IOException {
+        long count = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream body = exchange.getRequestBody()) {
+            for (int read; (read = body.read(buffer)) != -1; ) {
+                count += read;
+            }
+        }
+        received.set(count);
+        byte[] answer = Long.toString(count).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(201, answer.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(answer);
+        }
+    }
+
+    @AfterAll
+    static void stopServices() {
+        datasourceService.stop(0);
+    }
+
+    @Test
+    void bodyLargerThanTheHeapStreamsThroughTheGateway() throws Exception {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        assertThat(SIZE.toBytes()).isGreaterThan(maxHeap);
+
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong peakDirect = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max);
+            peakDirect.accumulateAndGet(PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory(), Math::max);
+        }, 0, 50, TimeUnit.MILLISECONDS);
+
+        // No length known up front, the client sends the body chunked
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/blob/writeBlobFile"))
+                .header("Cookie", AuthenticationFilter.TOKEN_COOKIE + "=" + token())
+                .header("Content-Type", "application/octet-stream")
+                .timeout(Duration.ofMinutes(10))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> zeros(SIZE.toBytes())))
+                .build();
+
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } finally {
+            sampler.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%n%-24s %d MB in %.1fs  %.0f MB/s  max heap %d MB  peak heap %d MB"
+                        + "  peak netty direct %d MB%n",
+                "streaming-upload", SIZE.toMegabytes(), seconds, SIZE.toMegabytes() / seconds,
+                maxHeap >> 20, peakHeap.get() >> 20, peakDirect.get() >> 20);
+
+        assertThat(response.statusCode()).isEqualTo(201);
+        assertThat(response.body()).isEqualTo(Long.toString(SIZE.toBytes()));
+        assertThat(received).hasValue(SIZE.toBytes());
+        assertThat(peakDirect.get()).isLessThan(MAX_DIRECT_IN_USE.toBytes());
+    }
+
+    private static InputStream zeros(long size) {
+        return new InputStream() {
+            private long left = size;
+
+            @Override
+            public int read() {
+                if (left == 0) {
+                    return -1;
+                }
+                left--;
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (left == 0) {
+                    return -1;
+                }
+                int count = (int) Math.min(length, left);
+                Arrays.fill(buffer, offset, offset + count, (byte) 0);
+                left -= count;
+                return count;
+            }
+        };
+    }
+
+    private static String token() {
+        Instant issuedAt = Instant.now();
+        return Jwts.builder()
+                .subject("upload@load.test")
+                .claim("userId", "1")
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(issuedAt.plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(SECRET))
+                .compact();
+    }
+}
@@ -1,6 +1,9 @@
 package org.dataledge.identityservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataledge.identityservice.service.BoundedPasswordEncoder;
 import org.dataledge.identityservice.service.CustomUserDetailsService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,6 +12,7 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -16,6 +20,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
 @Configuration
+@EnableConfigurationProperties({PasswordHashingProperties.class, UserCacheProperties.class, JwtKeyProperties.class})
 public class AuthConfig {
 
     @Bean
@@ -35,11 +40,16 @@ public class AuthConfig {
 
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider(userDetailsService);
         daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Rehashes passwords stored at a lower cost than the configured strength after a successful login
+        if (userDetailsService instanceof UserDetailsPasswordService userDetailsPasswordService) {
+            daoAuthenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+        }
         return daoAuthenticationProvider;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(properties.getStrength()), properties,
+                meterRegistry);
     }
 }
@@ -1,7 +1,5 @@
 package org.dataledge.identityservice.config;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
 import org.dataledge.identityservice.entity.UserCredential;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,16 +8,42 @@ import java.util.Collection;
 import java.util.List;
 
 
+/**
+ * Principal of both logins and token authenticated requests; carries what {@code /auth/me} answers with,
+ * so neither needs another lookup.
+ */
 public class CustomUserDetails implements UserDetails {
 
-    private String email;
-    private String password;
+    private final int id;
+    private final String name;
+    private final String email;
+    private final String password;
 
     public CustomUserDetails(UserCredential userCredential) {
+        this.id = userCredential.getId();
+        this.name = userCredential.getName();
         this.email = userCredential.getEmail();
         this.password = userCredential.getPassword();
     }
 
+    /**
+     * From the claims of a verified token, without a password.
+     */
+    public CustomUserDetails(int id, String email, String name) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.password = null;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of();
@@ -11,6 +11,7 @@ import org.dataledge.identityservice.service.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -35,6 +36,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private UserCache userCache;
+
     // Cookie header name
     private static final String COOKIE_NAME = "accessToken";
 
@@ -66,25 +70,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (token != null) {
             try {
                 log.info("Attempting to authenticate using JWT Token");
-                email = jwtUtil.extractUsername(token);
-
+                // Verifies signature and expiry, throws otherwise
+                JwtUtil.TokenClaims claims = jwtUtil.verify(token);
+                email = claims.email();
 
                 var currentAuth = SecurityContextHolder.getContext().getAuthentication();
 
                 // Check for anonymous user token
                 if (email != null && (currentAuth == null || "anonymousUser".equals(currentAuth.getName()))) {
                     log.info("User is authenticated");
-                    // Add logged in userDetails
-                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+                    UserDetails userDetails = principal(claims, email);
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
 
-                    if (jwtUtil.validateToken(token, userDetails)) {
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (Exception e) {
                 log.error("JWT Authentication failed: {}", e.getLocalizedMessage());
@@ -93,4 +94,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Built from the claims; only tokens issued before they carried the name need the user looked up, cached.
+     */
+    private UserDetails principal(JwtUtil.TokenClaims claims, String email) {
+        if (claims.userId() != null && claims.name() != null) {
+            return new CustomUserDetails(Integer.parseInt(claims.userId()), email, claims.name());
+        }
+        UserDetails userDetails = userCache.getUserFromCache(email);
+        if (userDetails == null) {
+            userDetails = userDetailsService.loadUserByUsername(email);
+            userCache.putUserInCache(userDetails);
+        }
+        return userDetails;
+    }
+}
@@ -0,0 +1,28 @@
+package org.dataledge.identityservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Signing keys by {@code kid}. New tokens are signed with {@code JWT_SECRET} under {@code key-id}; retired secrets
+ * stay in {@code verification-keys} until the last token they signed has expired, so rotating the secret does not
+ * sign everybody out.
+ */
+@Data
+@ConfigurationProperties(prefix = "identity.jwt")
+public class JwtKeyProperties {
+
+    /**
+     * kid of {@code JWT_SECRET}, written into the header of every issued token.
+     * Tokens without a kid were issued before rotation and are checked against {@code JWT_SECRET}.
+     */
+    private String keyId = "default";
+
+    /**
+     * Retired secrets by kid, base64 like {@code JWT_SECRET}, accepted for verification only.
+     */
+    private Map<String, String> verificationKeys = new LinkedHashMap<>();
+}
@@ -0,0 +1,27 @@
+package org.dataledge.identityservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * BCrypt runs on its own bounded pool so a burst of logins queues there instead of on every request thread.
+ */
+@Data
+@ConfigurationProperties(prefix = "identity.password-hashing")
+public class PasswordHashingProperties {
+
+    /**
+     * BCrypt log rounds for new hashes. Stored hashes of a lower cost are rehashed on the user's next login.
+     */
+    private int strength = 10;
+
+    /**
+     * Hashing threads, defaults to the cores the container may use.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Hashes waiting for a thread before further ones are rejected with 503.
+     */
+    private int queueCapacity = 32;
+}
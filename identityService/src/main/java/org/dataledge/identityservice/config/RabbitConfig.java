@@ -1,7 +1,13 @@
 package org.dataledge.identityservice.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dataledge.identityservice.service.RabbitMQProducer;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
@@ -12,6 +18,27 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class RabbitConfig {
 
+    public static final String EXCHANGE_NAME = "user.exchange";
+
+    /**
+     * One server-named, auto-deleted queue per identity replica, every replica evicts every changed user.
+     */
+    @Bean
+    public Queue userDetailsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public TopicExchange exchange() {
+        return new TopicExchange(EXCHANGE_NAME);
+    }
+
+    @Bean
+    public Binding userDetailsBinding(Queue userDetailsQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(userDetailsQueue).to(exchange)
+                .with(RabbitMQProducer.USER_DETAILS_CHANGED_ROUTING_KEY);
+    }
+
     @Bean
     public MessageConverter converter() {
         return new Jackson2JsonMessageConverter();
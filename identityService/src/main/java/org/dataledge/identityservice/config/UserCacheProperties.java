@@ -0,0 +1,21 @@
+package org.dataledge.identityservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Users looked up by the JWT filter, evicted on every replica when the user is deleted or their password changes.
+ */
+@Data
+@ConfigurationProperties(prefix = "identity.user-cache")
+public class UserCacheProperties {
+
+    private long maxSize = 10_000;
+
+    /**
+     * Upper bound on staleness should an eviction message be lost.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
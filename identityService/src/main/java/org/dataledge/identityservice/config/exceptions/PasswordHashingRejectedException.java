@@ -0,0 +1,10 @@
+package org.dataledge.identityservice.config.exceptions;
+
+/**
+ * Thrown when the password hashing queue is full, answered with 503 so the client retries later.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -34,7 +34,10 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<String> logoutUser(HttpServletResponse response) {
+    public ResponseEntity<String> logoutUser(@CookieValue(name = "accessToken", required = false) String token,
+                                             HttpServletResponse response) {
+        authService.logout(token);
+
         ResponseCookie cookie = ResponseCookie.from("accessToken", "") // Empty value
                 .httpOnly(true)
                 .secure(false) // strict HTTPS check (keep consistent with login)
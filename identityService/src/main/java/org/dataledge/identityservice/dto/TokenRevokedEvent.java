@@ -0,0 +1,33 @@
+package org.dataledge.identityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Tells the gateways to stop accepting tokens before they expire.
+ * Either one token by its {@code jti}, or every token of a user issued at or before {@code revokedBefore}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class TokenRevokedEvent {
+    private String tokenId;
+    private Integer userId;
+
+    /** Epoch millis, set for user-wide revocations only */
+    private Long revokedBefore;
+
+    /** Epoch millis after which no affected token is valid anyway, so gateways can forget the entry */
+    private long expiresAt;
+
+    public static TokenRevokedEvent ofToken(String tokenId, Integer userId, long expiresAt) {
+        return new TokenRevokedEvent(tokenId, userId, null, expiresAt);
+    }
+
+    public static TokenRevokedEvent ofUser(Integer userId, long revokedBefore, long expiresAt) {
+        return new TokenRevokedEvent(null, userId, revokedBefore, expiresAt);
+    }
+}
@@ -0,0 +1,17 @@
+package org.dataledge.identityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Tells every identity replica to drop its cached copy of the user, sent on deletion and password change.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class UserDetailsChangedEvent {
+    private String email;
+}
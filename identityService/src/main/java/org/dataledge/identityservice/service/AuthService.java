@@ -1,21 +1,25 @@
 package org.dataledge.identityservice.service;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dataledge.identityservice.config.CustomUserDetails;
 import org.dataledge.identityservice.config.exceptions.ExistingEmailException;
+import org.dataledge.identityservice.dto.TokenRevokedEvent;
 import org.dataledge.identityservice.dto.auth.AuthRequest;
 import org.dataledge.identityservice.dto.auth.AuthResponse;
 import org.dataledge.identityservice.dto.auth.SignUpResponse;
 import org.dataledge.identityservice.dto.auth.User;
 import org.dataledge.identityservice.entity.UserCredential;
 import org.dataledge.identityservice.repository.UserCredentialRepository;
+import org.springframework.amqp.AmqpException;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +40,8 @@ public class AuthService {
 
     private final RabbitMQProducer rabbitMQProducer;
 
+    private final UserCache userCache;
+
     public SignUpResponse saveUser(UserCredential userCredential) {
         Optional<UserCredential> existingCredential = repository.findByEmail(userCredential.getEmail());
         if (existingCredential.isPresent()) {
@@ -56,26 +62,16 @@ public class AuthService {
             );
 
             if(authenticate.isAuthenticated()) {
+                // Loaded once by the authentication provider, carries everything the response needs
                 CustomUserDetails principal = (CustomUserDetails)authenticate.getPrincipal();
 
-                Optional<UserCredential> credential = repository.findByEmail(principal.getUsername());
-
-                if (credential.isPresent()) {
-                    UserCredential userCredential = credential.get();
-
-                    response.setUser(new User(userCredential.getId(), userCredential.getEmail(), userCredential.getName()));
+                response.setUser(new User(principal.getId(), principal.getUsername(), principal.getName()));
 
-                    String email = userCredential.getEmail();
-                    String userId = String.valueOf(userCredential.getId());
+                log.info("Setting response jwt token...");
+                response.setJwtToken(jwtService.generateToken(principal.getUsername(),
+                        String.valueOf(principal.getId()), principal.getName()));
 
-                    log.info("Setting response jwt token...");
-                    response.setJwtToken(jwtService.generateToken(email, userId));
-
-                    return response;
-                } else {
-                    // Should not happen if authentication passed, but good for safety
-                    throw new BadCredentialsException("User credential not found after successful authentication.");
-                }
+                return response;
             }
         }
         catch (AuthenticationException e) {
@@ -105,6 +101,52 @@ public class AuthService {
         log.info("Sending message to RabbitMQ for user {}", userId);
         rabbitMQProducer.sendUserDeletedEvent(userId);
         log.info("Message sent to RabbitMQ for user {}", userId);
+
+        // Cached by every identity replica's JWT filter
+        userCache.removeUserFromCache(user.getEmail());
+        try {
+            rabbitMQProducer.sendUserDetailsChangedEvent(user.getEmail());
+        } catch (AmqpException e) {
+            log.error("Could not publish user details change for user {}", userId, e);
+        }
+
+        // Every token issued so far stops working at the gateway, not only the one in this request
+        long now = System.currentTimeMillis();
+        publishRevocation(TokenRevokedEvent.ofUser(userId, now, now + jwtService.getJwtExpiration()));
+    }
+
+    /**
+     * Revokes the token the user logs out with. Tokens that no longer verify need no revocation.
+     */
+    public void logout(String token) {
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+
+        JwtUtil.TokenClaims claims;
+        try {
+            claims = jwtService.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+
+        Integer userId = claims.userId() != null ? Integer.valueOf(claims.userId()) : null;
+        long expiresAt = claims.expiresAt().toEpochMilli();
+        if (claims.tokenId() != null) {
+            publishRevocation(TokenRevokedEvent.ofToken(claims.tokenId(), userId, expiresAt));
+        } else if (userId != null && claims.issuedAt() != null) {
+            // Issued before tokens carried a jti, revoke by issue time instead
+            publishRevocation(TokenRevokedEvent.ofUser(userId, claims.issuedAt().toEpochMilli(), expiresAt));
+        }
+    }
+
+    private void publishRevocation(TokenRevokedEvent event) {
+        try {
+            rabbitMQProducer.sendTokenRevokedEvent(event);
+        } catch (AmqpException e) {
+            // The cookie is cleared either way, the token still expires on its own
+            log.error("Could not publish token revocation for user {}", event.getUserId(), e);
+        }
     }
 
 
@@ -114,20 +156,15 @@ public class AuthService {
         jwtService.validateToken(token);
     }
 
+    /**
+     * Answered from the principal the token was authenticated with, no lookup.
+     */
     public User checkAuth(){
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
-
-            // 1. Get the email from the session/token
-            String email = authentication.getName();
-
-            // 2. Fetch the full user details from the DB
-            UserCredential user = repository.findByEmail(email).orElseThrow(() -> new BadCredentialsException("User not found!"));
-
-
-            // 3. Return the DTO with ID, Email and Name
-            return new User(user.getId(), user.getEmail(), user.getName());
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof CustomUserDetails principal) {
+            return new User(principal.getId(), principal.getUsername(), principal.getName());
         }
 
         throw new AuthenticationCredentialsNotFoundException("User is currently not authenticated");
@@ -4,8 +4,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.dataledge.identityservice.config.CustomUserDetails;
 import org.dataledge.identityservice.entity.UserCredential;
 import org.dataledge.identityservice.repository.UserCredentialRepository;
+import org.springframework.amqp.AmqpException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -14,11 +17,17 @@ import java.util.Optional;
 
 @Component
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserCredentialRepository userCredentialRepository;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private RabbitMQProducer rabbitMQProducer;
+
     /***
      *
      * @param query can be either a String id for int parsing or a string of email
@@ -32,5 +41,27 @@ public class CustomUserDetailsService implements UserDetailsService {
         return credential.map(CustomUserDetails::new).orElseThrow(() -> new UsernameNotFoundException("User not found with name: " + query));
     }
 
+    /**
+     * Stores the password rehashed at the current strength, called after a login with a weaker stored hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Optional<UserCredential> credential = userCredentialRepository.findByEmail(user.getUsername());
+        if (credential.isEmpty()) {
+            return user;
+        }
+        UserCredential userCredential = credential.get();
+        userCredential.setPassword(newPassword);
+        userCredentialRepository.save(userCredential);
+        log.info("Upgraded password hash of user {}", userCredential.getId());
 
+        // Cached copies on every replica hold the old hash
+        userCache.removeUserFromCache(userCredential.getEmail());
+        try {
+            rabbitMQProducer.sendUserDetailsChangedEvent(userCredential.getEmail());
+        } catch (AmqpException e) {
+            log.error("Could not publish user details change for user {}", userCredential.getId(), e);
+        }
+        return new CustomUserDetails(userCredential);
+    }
 }
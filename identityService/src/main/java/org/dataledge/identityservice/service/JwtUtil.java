@@ -1,114 +1,137 @@
 package org.dataledge.identityservice.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.dataledge.identityservice.config.JwtKeyProperties;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
-import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
+/**
+ * Issues and verifies access tokens. Keys and the parser are built once at startup; every verification parses
+ * the token a single time into {@link TokenClaims}. Tokens carry the {@code kid} of the key that signed them,
+ * see {@link JwtKeyProperties} for rotating the secret.
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${JWT_SECRET}")
-    private String secret;
+    private final long jwtExpiration;
+    private final String signingKeyId;
+    private final SecretKey signingKey;
+    private final Map<String, SecretKey> verificationKeys;
+    private final JwtParser parser;
 
-    @Value("${JWT_EXPIRATION_MS}")
-    private long jwtExpiration;
-
-    // Extract the custom User ID claim ---
     /**
-     * Extracts the User ID stored in the custom 'userId' claim.
-     * @param token The JWT string.
-     * @return The User ID as a String.
+     * What the service reads from a verified token.
+     * @param email   subject
+     * @param userId  custom claim 'userId'
+     * @param name    custom claim 'name', null on tokens issued before it was added
+     * @param tokenId jti, null on tokens issued before it was added
      */
-    public String extractUserIdClaim(String token) {
-        // Safely extract the custom claim and cast it as String
-        return extractClaim(token, claims -> claims.get("userId", String.class));
+    public record TokenClaims(String email, String userId, String name, String tokenId, Instant issuedAt,
+                              Instant expiresAt) {
     }
-    // ----------------------------------------------------
 
-    // 1. Extract Username/Email from Token (Using the standard subject claim)
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public JwtUtil(@Value("${JWT_SECRET}") String secret,
+                   @Value("${JWT_EXPIRATION_MS}") long jwtExpiration,
+                   JwtKeyProperties keys) {
+        this.jwtExpiration = jwtExpiration;
+        this.signingKeyId = keys.getKeyId();
+        this.signingKey = key(secret);
+        this.verificationKeys = new HashMap<>();
+        keys.getVerificationKeys().forEach((kid, retired) -> verificationKeys.put(kid, key(retired)));
+        verificationKeys.put(signingKeyId, signingKey);
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
     }
 
-    // 2. Extract Expiration Date
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private static SecretKey key(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
     }
 
-    // 3. Generic Method to Extract Claims
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private Key verificationKey(String kid) {
+        if (kid == null) {
+            return signingKey;
+        }
+        SecretKey key = verificationKeys.get(kid);
+        if (key == null) {
+            throw new SignatureException("Token signed with unknown key " + kid);
+        }
+        return key;
     }
 
-    // 4. Extract All Claims (Parsing the token)
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Parses and verifies the token once.
+     * @param token the compact JWT
+     * @return its claims
+     * @throws JwtException when the token is malformed, expired or not signed with one of our keys
+     */
+    public TokenClaims verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            // Without exp the token would be valid forever, every token issued here has one
+            throw new JwtException("Token has no expiration");
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return new TokenClaims(claims.getSubject(), claims.get("userId", String.class),
+                claims.get("name", String.class), claims.getId(),
+                issuedAt != null ? issuedAt.toInstant() : null, expiration.toInstant());
     }
 
-    // 5. Check if Token is Expired
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public void validateToken(final String token) {
+        verify(token);
     }
 
-    // Validation is strictly against the standard subject (email)
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    public void validateToken(final String token) {
-        Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token);
+    public long getJwtExpiration() {
+        return jwtExpiration;
     }
 
     /**
-     * Generates a token setting the Email as the standard subject and the ID as a custom claim.
+     * Generates a token setting the Email as the standard subject and the ID and name as custom claims.
      * @param email The user's email (used as subject).
      * @param userId The user's ID (used as custom claim 'userId').
+     * @param name The user's display name (used as custom claim 'name'), lets /auth/me answer without a lookup.
      * @return The JWT string.
      */
-    public String generateToken(String email, String userId) {
+    public String generateToken(String email, String userId, String name) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
+        claims.put("name", name);
         return createToken(claims, email);
     }
 
-
-
     // Internal Token Creation
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .header().keyId(signingKeyId).and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString()) // jti, lets a single token be revoked at the gateway
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignKey(), Jwts.SIG.HS256)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + jwtExpiration))
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
-
-    // Helper to decode base64 secret key
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-}
\ No newline at end of file
+}
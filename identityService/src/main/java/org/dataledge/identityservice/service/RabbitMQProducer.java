@@ -1,7 +1,9 @@
 package org.dataledge.identityservice.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dataledge.identityservice.dto.TokenRevokedEvent;
 import org.dataledge.identityservice.dto.UserDeletedEvent;
+import org.dataledge.identityservice.dto.UserDetailsChangedEvent;
 import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,6 +14,8 @@ public class RabbitMQProducer {
 
     private static final String EXCHANGE_NAME = "user.exchange";
     private static final String ROUTING_KEY = "user.deleted";
+    private static final String TOKEN_REVOKED_ROUTING_KEY = "token.revoked";
+    public static final String USER_DETAILS_CHANGED_ROUTING_KEY = "user.details.changed";
 
     private final AmqpTemplate rabbitTemplate;
 
@@ -27,4 +31,16 @@ public class RabbitMQProducer {
 
         log.info("User Deleted Event published for User ID: {}", userId);
     }
+
+    public void sendTokenRevokedEvent(TokenRevokedEvent event) {
+        rabbitTemplate.convertAndSend(EXCHANGE_NAME, TOKEN_REVOKED_ROUTING_KEY, event);
+
+        log.info("Token Revoked Event published for User ID: {}", event.getUserId());
+    }
+
+    public void sendUserDetailsChangedEvent(String email) {
+        rabbitTemplate.convertAndSend(EXCHANGE_NAME, USER_DETAILS_CHANGED_ROUTING_KEY, new UserDetailsChangedEvent(email));
+
+        log.info("User Details Changed Event published");
+    }
 }
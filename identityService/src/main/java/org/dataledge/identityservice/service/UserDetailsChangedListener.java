@@ -0,0 +1,24 @@
+package org.dataledge.identityservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dataledge.identityservice.dto.UserDetailsChangedEvent;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class UserDetailsChangedListener {
+
+    private final UserCache userCache;
+
+    public UserDetailsChangedListener(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @RabbitListener(queues = "#{userDetailsQueue.name}")
+    public void handleUserDetailsChanged(UserDetailsChangedEvent event) {
+        log.info("Evicting cached user details");
+        userCache.removeUserFromCache(event.getEmail());
+    }
+}
@@ -0,0 +1,117 @@
+package org.dataledge.identityservice;
+
+import jakarta.servlet.http.Cookie;
+import org.dataledge.identityservice.config.JwtAuthenticationFilter;
+import org.dataledge.identityservice.config.JwtKeyProperties;
+import org.dataledge.identityservice.dto.auth.AuthRequest;
+import org.dataledge.identityservice.dto.auth.AuthResponse;
+import org.dataledge.identityservice.dto.auth.User;
+import org.dataledge.identityservice.entity.UserCredential;
+import org.dataledge.identityservice.repository.UserCredentialRepository;
+import org.dataledge.identityservice.service.AuthService;
+import org.dataledge.identityservice.service.CustomUserDetailsService;
+import org.dataledge.identityservice.service.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private UserCredentialRepository userCredentialRepository;
+
+    @InjectMocks
+    private CustomUserDetailsService userDetailsService;
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private JwtUtil jwtUtil;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(4);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        jwtUtil = new JwtUtil(Base64.getEncoder().encodeToString(new byte[32]), 60_000L,
+                new JwtKeyProperties());
+
+        authService = new AuthService(userCredentialRepository, passwordEncoder, new ProviderManager(provider),
+                jwtUtil, null, new NullUserCache());
+    }
+
+    private void givenUser() {
+        when(userCredentialRepository.findByEmail(EMAIL)).thenReturn(Optional.of(
+                new UserCredential(7, "Test User", EMAIL, passwordEncoder.encode("secret"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticate_LooksTheUserUpOnce() {
+        // Arrange
+        givenUser();
+
+        // Act
+        AuthResponse response = authService.authenticate(new AuthRequest(EMAIL, "secret"));
+
+        // Assert
+        assertEquals(new User(7, EMAIL, "Test User"), response.getUser());
+        assertEquals("Test User", jwtUtil.verify(response.getJwtToken()).name());
+        verify(userCredentialRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void checkAuth_AnsweredFromTheTokenWithoutLookup() throws Exception {
+        // Arrange
+        givenUser();
+        String token = authService.authenticate(new AuthRequest(EMAIL, "secret")).getJwtToken();
+        clearInvocations(userCredentialRepository);
+
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "userCache", new NullUserCache());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/me");
+        request.setCookies(new Cookie("accessToken", token));
+
+        // Act
+        AtomicReference<User> user = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> user.set(authService.checkAuth()));
+
+        // Assert
+        assertEquals(new User(7, EMAIL, "Test User"), user.get());
+        verifyNoInteractions(userCredentialRepository);
+    }
+
+    @Test
+    void checkAuth_WithoutAuthentication_ThrowsException() {
+        assertThrows(AuthenticationCredentialsNotFoundException.class, () -> authService.checkAuth());
+    }
+}
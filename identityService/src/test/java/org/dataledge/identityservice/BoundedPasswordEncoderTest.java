@@ -0,0 +1,137 @@
+package org.dataledge.identityservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dataledge.identityservice.config.PasswordHashingProperties;
+import org.dataledge.identityservice.config.exceptions.PasswordHashingRejectedException;
+import org.dataledge.identityservice.entity.UserCredential;
+import org.dataledge.identityservice.repository.UserCredentialRepository;
+import org.dataledge.identityservice.service.BoundedPasswordEncoder;
+import org.dataledge.identityservice.service.CustomUserDetailsService;
+import org.dataledge.identityservice.service.RabbitMQProducer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BoundedPasswordEncoderTest {
+
+    @Mock
+    private UserCredentialRepository userCredentialRepository;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private RabbitMQProducer rabbitMQProducer;
+
+    @InjectMocks
+    private CustomUserDetailsService userDetailsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingProperties properties;
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new PasswordHashingProperties();
+        properties.setStrength(5);
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    void rejectsHashesBeyondTheQueue() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                hashing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.matches(rawPassword, encodedPassword);
+            }
+        }, properties, meterRegistry);
+        String stored = new BCryptPasswordEncoder(4).encode("secret");
+
+        // One hashing, one queued
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("secret", stored));
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("secret", stored));
+        waitForQueueLength(1);
+
+        // The next login finds the queue full
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.matches("secret", stored));
+        assertEquals(1, meterRegistry.counter("identity.password.rejected").count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(2, meterRegistry.get("identity.password.queue.wait").timer().count());
+        assertEquals(2, meterRegistry.get("identity.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void rehashesAWeakerStoredPasswordOnLogin() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(properties.getStrength()), properties,
+                meterRegistry);
+        UserCredential credential = new UserCredential(7, "Test", "test@example.com",
+                new BCryptPasswordEncoder(4).encode("secret"));
+        when(userCredentialRepository.findByEmail("test@example.com")).thenReturn(Optional.of(credential));
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService(userDetailsService);
+
+        // Act
+        provider.authenticate(new UsernamePasswordAuthenticationToken("test@example.com", "secret"));
+
+        // Assert
+        ArgumentCaptor<UserCredential> saved = ArgumentCaptor.forClass(UserCredential.class);
+        verify(userCredentialRepository).save(saved.capture());
+        String rehashed = saved.getValue().getPassword();
+        assertTrue(rehashed.startsWith("$2a$05$"));
+        assertTrue(encoder.matches("secret", rehashed));
+        assertFalse(encoder.upgradeEncoding(rehashed));
+        verify(userCache).removeUserFromCache("test@example.com");
+        verify(rabbitMQProducer).sendUserDetailsChangedEvent("test@example.com");
+    }
+
+    private void waitForQueueLength(int length) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("identity.password.queue.size").gauge().value() < length
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
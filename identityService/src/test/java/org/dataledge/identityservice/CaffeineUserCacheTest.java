@@ -0,0 +1,122 @@
+package org.dataledge.identityservice;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.dataledge.identityservice.config.JwtAuthenticationFilter;
+import org.dataledge.identityservice.config.JwtKeyProperties;
+import org.dataledge.identityservice.config.UserCacheProperties;
+import org.dataledge.identityservice.dto.UserDetailsChangedEvent;
+import org.dataledge.identityservice.entity.UserCredential;
+import org.dataledge.identityservice.repository.UserCredentialRepository;
+import org.dataledge.identityservice.service.CaffeineUserCache;
+import org.dataledge.identityservice.service.CustomUserDetailsService;
+import org.dataledge.identityservice.service.JwtUtil;
+import org.dataledge.identityservice.service.UserDetailsChangedListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CaffeineUserCacheTest {
+
+    private static final String EMAIL = "test@example.com";
+    private static final byte[] SECRET = new byte[32];
+
+    @Mock
+    private UserCredentialRepository userCredentialRepository;
+
+    @InjectMocks
+    private CustomUserDetailsService userDetailsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaffeineUserCache userCache;
+    private JwtAuthenticationFilter filter;
+    private String legacyToken;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new CaffeineUserCache(new UserCacheProperties(), meterRegistry);
+
+        JwtUtil jwtUtil = new JwtUtil(Base64.getEncoder().encodeToString(SECRET), 60_000L,
+                new JwtKeyProperties());
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "userCache", userCache);
+
+        // Issued before tokens carried the name, the filter has to look the user up
+        legacyToken = Jwts.builder()
+                .claims(Map.of("userId", "7"))
+                .subject(EMAIL)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET), Jwts.SIG.HS256)
+                .compact();
+
+        when(userCredentialRepository.findByEmail(EMAIL))
+                .thenReturn(Optional.of(new UserCredential(7, "Test User", EMAIL, "encodedPassword")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/me");
+        request.setCookies(new Cookie("accessToken", legacyToken));
+        AtomicReference<Authentication> authentication = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> authentication.set(SecurityContextHolder.getContext().getAuthentication()));
+        SecurityContextHolder.clearContext();
+        return authentication.get();
+    }
+
+    @Test
+    void filter_LooksTheUserUpOncePerCacheEntry() throws Exception {
+        // Act
+        Authentication first = authenticate();
+        Authentication second = authenticate();
+
+        // Assert
+        assertEquals(EMAIL, first.getName());
+        assertEquals(EMAIL, second.getName());
+        verify(userCredentialRepository, times(1)).findByEmail(EMAIL);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void changedEvent_EvictsTheUser() throws Exception {
+        // Arrange
+        authenticate();
+
+        // Act
+        new UserDetailsChangedListener(userCache).handleUserDetailsChanged(new UserDetailsChangedEvent(EMAIL));
+        authenticate();
+
+        // Assert
+        verify(userCredentialRepository, times(2)).findByEmail(EMAIL);
+    }
+}
@@ -0,0 +1,89 @@
+package org.dataledge.identityservice;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.dataledge.identityservice.config.JwtKeyProperties;
+import org.dataledge.identityservice.service.JwtUtil;
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final long EXPIRATION_MS = 60_000;
+
+    private final byte[] oldKey = randomKey();
+    private final byte[] newKey = randomKey();
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static JwtUtil jwtUtil(byte[] secret, String keyId) {
+        JwtKeyProperties keys = new JwtKeyProperties();
+        keys.setKeyId(keyId);
+        return new JwtUtil(Base64.getEncoder().encodeToString(secret), EXPIRATION_MS, keys);
+    }
+
+    @Test
+    void verify_ReadsEveryClaimFromOneParse() {
+        // Arrange
+        JwtUtil jwtUtil = jwtUtil(newKey, "2025-06");
+
+        // Act
+        JwtUtil.TokenClaims claims = jwtUtil.verify(jwtUtil.generateToken("test@example.com", "7", "Test User"));
+
+        // Assert
+        assertEquals("test@example.com", claims.email());
+        assertEquals("7", claims.userId());
+        assertEquals("Test User", claims.name());
+        assertNotNull(claims.tokenId());
+        assertEquals(EXPIRATION_MS, claims.expiresAt().toEpochMilli() - claims.issuedAt().toEpochMilli());
+    }
+
+    @Test
+    void verify_AcceptsTokensOfARetiredKeyAfterRotation() {
+        // Arrange
+        String issuedBefore = jwtUtil(oldKey, "2025-01").generateToken("test@example.com", "7", "Test User");
+        JwtKeyProperties rotated = new JwtKeyProperties();
+        rotated.setKeyId("2025-06");
+        rotated.getVerificationKeys().put("2025-01", Base64.getEncoder().encodeToString(oldKey));
+        JwtUtil jwtUtil = new JwtUtil(Base64.getEncoder().encodeToString(newKey), EXPIRATION_MS, rotated);
+
+        // Act & Assert
+        assertEquals("7", jwtUtil.verify(issuedBefore).userId());
+        assertEquals("7", jwtUtil.verify(jwtUtil.generateToken("test@example.com", "7", "Test User")).userId());
+    }
+
+    @Test
+    void verify_RejectsUnknownKeys() {
+        // Arrange
+        String issuedBefore = jwtUtil(oldKey, "2025-01").generateToken("test@example.com", "7", "Test User");
+        JwtUtil jwtUtil = jwtUtil(newKey, "2025-06");
+
+        // Act & Assert
+        assertThrows(SignatureException.class, () -> jwtUtil.verify(issuedBefore));
+    }
+
+    @Test
+    void verify_ChecksTokensWithoutKidAgainstTheCurrentSecret() {
+        // Arrange
+        String issuedBeforeKids = Jwts.builder()
+                .claim("userId", "7")
+                .subject("test@example.com")
+                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .signWith(Keys.hmacShaKeyFor(newKey), Jwts.SIG.HS256)
+                .compact();
+
+        // Act & Assert
+        assertEquals("test@example.com", jwtUtil(newKey, "2025-06").verify(issuedBeforeKids).email());
+        assertThrows(SignatureException.class, () -> jwtUtil(oldKey, "2025-06").verify(issuedBeforeKids));
+    }
+}
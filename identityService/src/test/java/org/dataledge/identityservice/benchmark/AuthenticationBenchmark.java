@@ -0,0 +1,198 @@
+package org.dataledge.identityservice.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.dataledge.identityservice.config.JwtAuthenticationFilter;
+import org.dataledge.identityservice.config.JwtKeyProperties;
+import org.dataledge.identityservice.config.PasswordHashingProperties;
+import org.dataledge.identityservice.config.UserCacheProperties;
+import org.dataledge.identityservice.dto.auth.AuthRequest;
+import org.dataledge.identityservice.dto.auth.User;
+import org.dataledge.identityservice.entity.UserCredential;
+import org.dataledge.identityservice.repository.UserCredentialRepository;
+import org.dataledge.identityservice.service.AuthService;
+import org.dataledge.identityservice.service.BoundedPasswordEncoder;
+import org.dataledge.identityservice.service.CaffeineUserCache;
+import org.dataledge.identityservice.service.CustomUserDetailsService;
+import org.dataledge.identityservice.service.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Login and {@code /auth/me} through the real provider, filter and service, against a repository whose
+ * {@code findByEmail} takes {@code lookupMicros}, standing in for the database round trip.
+ * <ul>
+ *     <li>{@code login}, {@code me}: one lookup per login, none per {@code /me}</li>
+ *     <li>{@code legacyLogin}, {@code legacyMe}: previous paths, a second lookup after login, two per {@code /me}</li>
+ * </ul>
+ * BCrypt runs at cost 4 so the lookups are not lost in the hash. Lookups per operation are printed at teardown.
+ * Run with {@code mvn -pl identityService test-compile} and the test classpath, main class
+ * {@code org.openjdk.jmh.Main}, or through {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    private static final String EMAIL = "user@dataledge.org";
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"0", "250"})
+    public int lookupMicros;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong operations = new AtomicLong();
+    private UserCredentialRepository repository;
+    private CustomUserDetailsService userDetailsService;
+    private BoundedPasswordEncoder passwordEncoder;
+    private AuthenticationManager authenticationManager;
+    private String secret;
+    private JwtUtil jwtUtil;
+    private AuthService authService;
+    private JwtAuthenticationFilter filter;
+    private AuthRequest request;
+    private Cookie cookie;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("org.dataledge")).setLevel(Level.WARN);
+
+        UserCredential credential = new UserCredential(42, "Benchmark User", EMAIL,
+                new BCryptPasswordEncoder(4).encode(PASSWORD));
+        repository = (UserCredentialRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserCredentialRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findByEmail")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    lookups.incrementAndGet();
+                    if (lookupMicros > 0) {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(lookupMicros));
+                    }
+                    return Optional.of(credential).filter(user -> user.getEmail().equals(args[0]));
+                });
+
+        userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userCredentialRepository", repository);
+
+        PasswordHashingProperties hashing = new PasswordHashingProperties();
+        hashing.setStrength(4);
+        passwordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), hashing, new SimpleMeterRegistry());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        authenticationManager = new ProviderManager(provider);
+
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        secret = Base64.getEncoder().encodeToString(keyBytes);
+        jwtUtil = new JwtUtil(secret, TimeUnit.HOURS.toMillis(1), new JwtKeyProperties());
+
+        CaffeineUserCache userCache = new CaffeineUserCache(new UserCacheProperties(), new SimpleMeterRegistry());
+        authService = new AuthService(repository, passwordEncoder, authenticationManager, jwtUtil, null, userCache);
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "userCache", userCache);
+
+        request = new AuthRequest(EMAIL, PASSWORD);
+        cookie = new Cookie("accessToken", authService.authenticate(request).getJwtToken());
+        lookups.set(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nlookupMicros %d: %.2f lookups per operation%n", lookupMicros,
+                (double) lookups.get() / Math.max(1, operations.get()));
+        passwordEncoder.destroy();
+    }
+
+    @Benchmark
+    public String login() {
+        operations.incrementAndGet();
+        return authService.authenticate(request).getJwtToken();
+    }
+
+    @Benchmark
+    public String legacyLogin() {
+        operations.incrementAndGet();
+        UserDetails principal = (UserDetails) authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD)).getPrincipal();
+        UserCredential user = repository.findByEmail(principal.getUsername()).orElseThrow();
+        return jwtUtil.generateToken(user.getEmail(), String.valueOf(user.getId()), user.getName());
+    }
+
+    @Benchmark
+    public User me() throws Exception {
+        operations.incrementAndGet();
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/auth/me");
+        servletRequest.setCookies(cookie);
+        AtomicReference<User> user = new AtomicReference<>();
+        try {
+            filter.doFilter(servletRequest, new MockHttpServletResponse(),
+                    (req, res) -> user.set(authService.checkAuth()));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return user.get();
+    }
+
+    @Benchmark
+    public User legacyMe() {
+        operations.incrementAndGet();
+        String token = cookie.getValue();
+        // Subject, then subject and expiry again to validate, each a parse with a freshly derived key
+        String email = legacyClaims(token).getSubject();
+        UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        if (!legacyClaims(token).getSubject().equals(userDetails.getUsername())
+                || legacyClaims(token).getExpiration().before(new Date())) {
+            throw new IllegalStateException("Token rejected");
+        }
+        UserCredential user = repository.findByEmail(email).orElseThrow();
+        return new User(user.getId(), user.getEmail(), user.getName());
+    }
+
+    private Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthenticationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
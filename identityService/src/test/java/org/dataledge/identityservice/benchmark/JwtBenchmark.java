@@ -0,0 +1,116 @@
+package org.dataledge.identityservice.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.dataledge.identityservice.config.JwtKeyProperties;
+import org.dataledge.identityservice.service.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification in the identity service.
+ * <ul>
+ *     <li>{@code legacyGenerate}, {@code legacyValidate}: previous paths, key decoded and derived per call,
+ *     validation parsing the token twice with a new parser each time</li>
+ *     <li>{@code generate}, {@code verify}: precomputed keys and parser, one parse</li>
+ *     <li>{@code verifyRotated}: token signed with a retired key, located by its kid</li>
+ * </ul>
+ * Run with {@code mvn -pl identityService test-compile} and the test classpath, main class
+ * {@code org.openjdk.jmh.Main}, or through {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String EMAIL = "user@dataledge.org";
+
+    private String secret;
+    private String token;
+    private String rotatedToken;
+    private JwtUtil jwtUtil;
+
+    @Setup
+    public void setUp() {
+        secret = randomSecret();
+        String retired = randomSecret();
+        JwtKeyProperties keys = new JwtKeyProperties();
+        keys.setKeyId("2025-06");
+        keys.getVerificationKeys().put("2025-01", retired);
+        jwtUtil = new JwtUtil(secret, TimeUnit.HOURS.toMillis(1), keys);
+
+        token = jwtUtil.generateToken(EMAIL, "42", "Benchmark User");
+        JwtKeyProperties before = new JwtKeyProperties();
+        before.setKeyId("2025-01");
+        rotatedToken = new JwtUtil(retired, TimeUnit.HOURS.toMillis(1), before)
+                .generateToken(EMAIL, "42", "Benchmark User");
+    }
+
+    private static String randomSecret() {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        return Base64.getEncoder().encodeToString(keyBytes);
+    }
+
+    @Benchmark
+    public String legacyGenerate() {
+        return Jwts.builder()
+                .claims(Map.of("userId", "42", "name", "Benchmark User"))
+                .id(UUID.randomUUID().toString())
+                .subject(EMAIL)
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(legacyKey(), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken(EMAIL, "42", "Benchmark User");
+    }
+
+    @Benchmark
+    public boolean legacyValidate() {
+        String username = legacyClaims(token).getSubject();
+        return username.equals(EMAIL) && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public String verify() {
+        return jwtUtil.verify(token).email();
+    }
+
+    @Benchmark
+    public String verifyRotated() {
+        return jwtUtil.verify(rotatedToken).email();
+    }
+
+    private Claims legacyClaims(String token) {
+        return Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload();
+    }
+
+    private SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}